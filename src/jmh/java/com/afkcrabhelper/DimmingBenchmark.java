@@ -0,0 +1,60 @@
+package com.afkcrabhelper;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Cost of dimming a full canvas into a software buffer like the client's, with a
+ * translucent and an opaque color.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class DimmingBenchmark
+{
+	@Param({"765x503", "1920x1080", "3840x2160"})
+	private String canvasSize;
+
+	@Param({"200", "255"})
+	private int opacity;
+
+	private BufferedImage canvas;
+	private Graphics2D graphics;
+	private Color color;
+	private int width;
+	private int height;
+
+	@Setup
+	public void setUp()
+	{
+		String[] size = canvasSize.split("x");
+		width = Integer.parseInt(size[0]);
+		height = Integer.parseInt(size[1]);
+		color = new Color(0, 0, 0, opacity);
+		canvas = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		graphics = canvas.createGraphics();
+	}
+
+	@TearDown
+	public void tearDown()
+	{
+		graphics.dispose();
+	}
+
+	@Benchmark
+	public DimmingLayer.Path paint()
+	{
+		return DimmingLayer.paint(graphics, color, width, height);
+	}
+}
@@ -0,0 +1,62 @@
+package com.afkcrabhelper;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Cost of building the overlay text and the flash check for a tracked Gemstone Crab.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DisplayTextBenchmark
+{
+	@Param
+	private AfkCrabHelperConfig.DisplayMode displayMode;
+
+	private PluginHarness harness;
+
+	@Setup
+	public void setUp() throws Exception
+	{
+		AfkCrabHelperConfig.DisplayMode mode = displayMode;
+		harness = new PluginHarness(new AfkCrabHelperConfig()
+		{
+			@Override
+			public DisplayMode displayMode()
+			{
+				return mode;
+			}
+		});
+		FakeNpc crab = harness.spawn("Gemstone Crab", TestNpcs.GEMSTONE_CRAB_ID, 1);
+		crab.setHealth(1, 30);
+		harness.interact(crab);
+		harness.tick();
+	}
+
+	@TearDown
+	public void tearDown() throws Exception
+	{
+		harness.shutDown();
+	}
+
+	@Benchmark
+	public String getDisplayText()
+	{
+		return harness.plugin.getDisplayText();
+	}
+
+	@Benchmark
+	public boolean shouldFlash()
+	{
+		return harness.plugin.shouldFlash();
+	}
+}
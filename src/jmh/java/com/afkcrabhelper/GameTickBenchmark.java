@@ -0,0 +1,63 @@
+package com.afkcrabhelper;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Cost of one game tick with a given number of NPCs in the scene.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class GameTickBenchmark
+{
+	@Param({"10", "100", "500"})
+	private int npcCount;
+
+	@Param({"true", "false"})
+	private boolean atCrab;
+
+	private PluginHarness harness;
+	private FakeNpc crab;
+
+	@Setup
+	public void setUp() throws Exception
+	{
+		harness = new PluginHarness(new AfkCrabHelperConfig()
+		{
+		});
+
+		crab = harness.spawn("Gemstone Crab", TestNpcs.GEMSTONE_CRAB_ID, 1);
+		crab.setHealth(25, 30);
+		for (int i = 1; i < npcCount; i++)
+		{
+			harness.spawn("Man", TestNpcs.MAN_ID, i + 1);
+		}
+
+		if (atCrab)
+		{
+			harness.interact(crab);
+		}
+		harness.tick();
+	}
+
+	@TearDown
+	public void tearDown() throws Exception
+	{
+		harness.shutDown();
+	}
+
+	@Benchmark
+	public void onGameTick()
+	{
+		harness.tick();
+	}
+}
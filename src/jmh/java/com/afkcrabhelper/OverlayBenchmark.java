@@ -0,0 +1,62 @@
+package com.afkcrabhelper;
+
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Cost of one overlay frame drawn into an offscreen canvas.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class OverlayBenchmark
+{
+	@Param({"765x503", "1920x1080", "3840x2160"})
+	private String canvasSize;
+
+	private PluginHarness harness;
+	private Graphics2D graphics;
+
+	@Setup
+	public void setUp() throws Exception
+	{
+		String[] size = canvasSize.split("x");
+		int width = Integer.parseInt(size[0]);
+		int height = Integer.parseInt(size[1]);
+
+		harness = new PluginHarness(new AfkCrabHelperConfig()
+		{
+		});
+		harness.client.setCanvasSize(width, height);
+		FakeNpc crab = harness.spawn("Gemstone Crab", TestNpcs.GEMSTONE_CRAB_ID, 1);
+		crab.setHealth(20, 30);
+		harness.interact(crab);
+		harness.tick();
+
+		graphics = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB).createGraphics();
+	}
+
+	@TearDown
+	public void tearDown() throws Exception
+	{
+		graphics.dispose();
+		harness.shutDown();
+	}
+
+	@Benchmark
+	public Dimension render()
+	{
+		return harness.overlay.render(graphics);
+	}
+}
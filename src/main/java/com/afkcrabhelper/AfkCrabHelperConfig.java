@@ -8,9 +8,11 @@ import net.runelite.client.config.ConfigItem;
 import net.runelite.client.config.ConfigSection;
 import net.runelite.client.config.Range;
 
-@ConfigGroup("afkcrabhelper")
+@ConfigGroup(AfkCrabHelperConfig.GROUP)
 public interface AfkCrabHelperConfig extends Config
 {
+    String GROUP = "afkcrabhelper";
+
     @ConfigSection(
         name = "Display",
         description = "Configure what information to display",
@@ -33,8 +35,8 @@ public interface AfkCrabHelperConfig extends Config
     String fontSection = "font";
 
     @ConfigSection(
-        name = "Flash Alert",
-        description = "Configure low HP flash alert",
+        name = "Low HP Alert",
+        description = "Configure alerts for when the crab is about to die",
         position = 3
     )
     String flashSection = "flash";
@@ -46,6 +48,30 @@ public interface AfkCrabHelperConfig extends Config
     )
     String timingSection = "timing";
 
+    @ConfigSection(
+        name = "Crab Detection",
+        description = "Configure which NPCs are treated as crabs",
+        position = 5,
+        closedByDefault = true
+    )
+    String detectionSection = "detection";
+
+    @ConfigSection(
+        name = "History",
+        description = "Configure the crab session history",
+        position = 6,
+        closedByDefault = true
+    )
+    String historySection = "history";
+
+    @ConfigSection(
+        name = "Debug",
+        description = "Diagnostics for the plugin's own performance",
+        position = 7,
+        closedByDefault = true
+    )
+    String debugSection = "debug";
+
     @ConfigItem(
         keyName = "displayMode",
         name = "Display Mode",
@@ -58,6 +84,30 @@ public interface AfkCrabHelperConfig extends Config
         return DisplayMode.TIME_REMAINING;
     }
 
+    @ConfigItem(
+        keyName = "showSessionStats",
+        name = "Session Stats",
+        description = "Show XP/hour, crabs killed and uptime under the overlay text",
+        section = displaySection,
+        position = 1
+    )
+    default boolean showSessionStats()
+    {
+        return false;
+    }
+
+    @ConfigItem(
+        keyName = "showCrabWorlds",
+        name = "Crab Worlds",
+        description = "List recently visited worlds by how long their Gemstone Crab has left, to pick a world to hop to, and when the next crab is back",
+        section = displaySection,
+        position = 2
+    )
+    default boolean showCrabWorlds()
+    {
+        return false;
+    }
+
     @ConfigItem(
         keyName = "overlayColor",
         name = "Overlay Color",
@@ -83,6 +133,18 @@ public interface AfkCrabHelperConfig extends Config
         return 200;
     }
 
+    @ConfigItem(
+        keyName = "powerSaver",
+        name = "Power Saver",
+        description = "While the overlay is fully opaque (opacity 255), stop drawing players, NPCs and other entities behind it",
+        section = appearanceSection,
+        position = 2
+    )
+    default boolean powerSaver()
+    {
+        return false;
+    }
+
 
     @ConfigItem(
         keyName = "fontFamily",
@@ -148,7 +210,7 @@ public interface AfkCrabHelperConfig extends Config
     @ConfigItem(
         keyName = "flashThreshold",
         name = "Flash Threshold %",
-        description = "Start flashing when crab HP% falls below this value",
+        description = "Alert when crab HP% falls below this value",
         section = flashSection,
         position = 1
     )
@@ -170,6 +232,30 @@ public interface AfkCrabHelperConfig extends Config
         return Color.YELLOW;
     }
 
+    @ConfigItem(
+        keyName = "lowHpNotification",
+        name = "Notify on Low HP",
+        description = "Send a notification when crab HP% falls below the threshold, even with the client minimized",
+        section = flashSection,
+        position = 3
+    )
+    default boolean lowHpNotification()
+    {
+        return false;
+    }
+
+    @ConfigItem(
+        keyName = "lowHpSound",
+        name = "Sound on Low HP",
+        description = "Play a sound when crab HP% falls below the threshold",
+        section = flashSection,
+        position = 4
+    )
+    default boolean lowHpSound()
+    {
+        return false;
+    }
+
     @ConfigItem(
         keyName = "activationDelay",
         name = "Activation Delay",
@@ -196,6 +282,78 @@ public interface AfkCrabHelperConfig extends Config
         return 0;
     }
 
+    @ConfigItem(
+        keyName = "customCrabIds",
+        name = "Extra Crab IDs",
+        description = "Comma separated NPC ids to treat as crabs (overlay only, no timer)",
+        section = detectionSection,
+        position = 0
+    )
+    default String customCrabIds()
+    {
+        return "";
+    }
+
+    @ConfigItem(
+        keyName = "customGemstoneCrabIds",
+        name = "Extra Gemstone Crab IDs",
+        description = "Comma separated NPC ids to treat as the Gemstone Crab (with HP and timer)",
+        section = detectionSection,
+        position = 1
+    )
+    default String customGemstoneCrabIds()
+    {
+        return "";
+    }
+
+    @ConfigItem(
+        keyName = "customRegionIds",
+        name = "Extra Region IDs",
+        description = "Comma separated map region ids where the plugin should stay active even with no crab in sight",
+        section = detectionSection,
+        position = 2
+    )
+    default String customRegionIds()
+    {
+        return "";
+    }
+
+    @ConfigItem(
+        keyName = "recordSessions",
+        name = "Record Sessions",
+        description = "Keep a history of crab sessions in the RuneLite folder",
+        section = historySection,
+        position = 0
+    )
+    default boolean recordSessions()
+    {
+        return true;
+    }
+
+    @ConfigItem(
+        keyName = "shareCrabState",
+        name = "Share With Local Clients",
+        description = "Share the Gemstone Crab's HP and drain rate with other RuneLite clients on this computer, so the timer is right as soon as one of them arrives",
+        section = displaySection,
+        position = 3
+    )
+    default boolean shareCrabState()
+    {
+        return false;
+    }
+
+    @ConfigItem(
+        keyName = "showMetrics",
+        name = "Performance Metrics",
+        description = "Record the plugin's tick and render times and show them in a panel and as JFR events",
+        section = debugSection,
+        position = 0
+    )
+    default boolean showMetrics()
+    {
+        return false;
+    }
+
     enum DisplayMode
     {
         TIME_REMAINING("Time Remaining"),
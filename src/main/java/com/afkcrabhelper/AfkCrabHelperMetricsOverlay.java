@@ -0,0 +1,50 @@
+package com.afkcrabhelper;
+
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import javax.inject.Inject;
+import net.runelite.client.ui.overlay.OverlayPanel;
+import net.runelite.client.ui.overlay.OverlayPosition;
+import net.runelite.client.ui.overlay.components.LineComponent;
+import net.runelite.client.ui.overlay.components.TitleComponent;
+
+/**
+ * Debug panel with p50/p99/max of each {@link PluginMetrics} metric.
+ */
+class AfkCrabHelperMetricsOverlay extends OverlayPanel
+{
+    private final PluginMetrics metrics;
+
+    @Inject
+    AfkCrabHelperMetricsOverlay(PluginMetrics metrics)
+    {
+        this.metrics = metrics;
+        setPosition(OverlayPosition.TOP_LEFT);
+        panelComponent.setPreferredSize(new Dimension(220, 0));
+    }
+
+    @Override
+    public Dimension render(Graphics2D graphics)
+    {
+        panelComponent.getChildren().add(TitleComponent.builder()
+            .text("AFK Crab Helper (p50 / p99 / max)")
+            .build());
+
+        for (PluginMetrics.Metric metric : PluginMetrics.getMetrics())
+        {
+            LatencyHistogram.Snapshot snapshot = metrics.snapshot(metric);
+            panelComponent.getChildren().add(LineComponent.builder()
+                .left(metric.getName())
+                .right(format(metric, snapshot.getPercentile(0.5)) + " / "
+                    + format(metric, snapshot.getPercentile(0.99)) + " / "
+                    + format(metric, snapshot.getMax()) + " " + metric.getUnit())
+                .build());
+        }
+        return super.render(graphics);
+    }
+
+    private static String format(PluginMetrics.Metric metric, long value)
+    {
+        return metric.isTime() ? String.valueOf(value / 1000) : String.valueOf(value);
+    }
+}
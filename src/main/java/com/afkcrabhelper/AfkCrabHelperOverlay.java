@@ -2,12 +2,7 @@ package com.afkcrabhelper;
 
 import java.awt.Color;
 import java.awt.Dimension;
-import java.awt.Font;
-import java.awt.FontMetrics;
 import java.awt.Graphics2D;
-import java.awt.RenderingHints;
-import java.time.Duration;
-import java.time.Instant;
 import javax.inject.Inject;
 import net.runelite.api.Client;
 import net.runelite.client.ui.overlay.Overlay;
@@ -17,17 +12,26 @@ import net.runelite.client.ui.overlay.OverlayPriority;
 
 public class AfkCrabHelperOverlay extends Overlay
 {
+    // Time the flashing text spends in each color
+    private static final int FLASH_MILLIS = 500;
+
     private final Client client;
     private final AfkCrabHelperPlugin plugin;
-    private final AfkCrabHelperConfig config;
-    private Instant trainingStartTime;
+    private final PluginMetrics metrics;
+
+    private final TextSprite textSprite = new TextSprite();
+    private final TextSprite statsSprite = new TextSprite();
+
+    // Returned from every render, only resized when the canvas changes size
+    private final Dimension canvasSize = new Dimension();
+    private volatile boolean layoutDirty = true;
 
     @Inject
-    public AfkCrabHelperOverlay(Client client, AfkCrabHelperPlugin plugin, AfkCrabHelperConfig config)
+    public AfkCrabHelperOverlay(Client client, AfkCrabHelperPlugin plugin, PluginMetrics metrics)
     {
         this.client = client;
         this.plugin = plugin;
-        this.config = config;
+        this.metrics = metrics;
         setPosition(OverlayPosition.DETACHED);
         setLayer(OverlayLayer.ALWAYS_ON_TOP);
         setPriority(OverlayPriority.HIGH);
@@ -36,86 +40,83 @@ public class AfkCrabHelperOverlay extends Overlay
     @Override
     public Dimension render(Graphics2D graphics)
     {
-        if (!plugin.isShowingOverlay())
+        long start = metrics.begin();
+        long allocationStart = metrics.beginAllocation();
+        Dimension dimension = renderOverlay(graphics);
+        metrics.endAllocation(allocationStart);
+        metrics.end(PluginMetrics.Metric.RENDER, start);
+        return dimension;
+    }
+
+    private Dimension renderOverlay(Graphics2D graphics)
+    {
+        DisplayState state = plugin.getDisplayState();
+        if (!state.isVisible())
         {
-            trainingStartTime = null;
+            textSprite.clear();
+            statsSprite.clear();
             return null;
         }
 
-        // Initialize training start time
-        if (trainingStartTime == null)
+        ResolvedSettings settings = plugin.getSettings();
+
+        if (layoutDirty)
         {
-            trainingStartTime = Instant.now();
+            layoutDirty = false;
+            canvasSize.setSize(client.getCanvasWidth(), client.getCanvasHeight());
         }
-
-        // Create overlay color with configured opacity
-        Color overlayColor = config.overlayColor();
-        Color transparentColor = new Color(
-            overlayColor.getRed(),
-            overlayColor.getGreen(), 
-            overlayColor.getBlue(),
-            config.overlayOpacity()
-        );
-        
-        // Get screen dimensions
-        int screenWidth = client.getCanvasWidth();
-        int screenHeight = client.getCanvasHeight();
         
         // Fill the entire screen with overlay
-        graphics.setColor(transparentColor);
-        graphics.fillRect(0, 0, screenWidth, screenHeight);
+        DimmingLayer.paint(graphics, settings.getOverlayColor(), canvasSize.width, canvasSize.height);
 
         // Render display text in center
-        renderDisplayText(graphics);
+        renderDisplayText(graphics, state, settings);
+        renderStatsText(graphics, state, settings);
 
-        return new Dimension(screenWidth, screenHeight);
+        return canvasSize;
     }
 
-    private void renderDisplayText(Graphics2D graphics)
+    /**
+     * Makes the next frame read the canvas size again.
+     */
+    void invalidateLayout()
     {
-        String displayText = plugin.getDisplayText();
-        if (displayText == null)
+        layoutDirty = true;
+    }
+
+    private void renderStatsText(Graphics2D graphics, DisplayState state, ResolvedSettings settings)
+    {
+        String statsText = state.getStatsText();
+        if (statsText == null)
         {
             return;
         }
 
-        // Enable anti-aliasing for smooth text
-        graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-        graphics.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
-
-        // Use configurable font settings
-        String fontFamily = config.fontFamily().getJavaFontName();
-        int fontStyle = config.fontStyle().getJavaFontStyle();
-        int fontSize = config.fontSize();
-        Font font = new Font(fontFamily, fontStyle, fontSize);
-        graphics.setFont(font);
-        FontMetrics metrics = graphics.getFontMetrics(font);
-
-        // Get the game canvas dimensions for proper centering
-        int canvasWidth = client.getCanvasWidth();
-        int canvasHeight = client.getCanvasHeight();
-        
-        // Calculate center position based on game canvas
-        int textWidth = metrics.stringWidth(displayText);
-        int x = (canvasWidth - textWidth) / 2;
-        int y = canvasHeight / 2;
+        // One line below the display text, which is centered on the canvas
+        int baselineY = canvasSize.height / 2 + settings.getStatsFont().getSize() + settings.getFont().getSize() / 2;
+        statsSprite.draw(graphics, statsText, settings.getStatsFont(), settings.getFontColor(), canvasSize.width / 2, baselineY);
+    }
 
-        // Draw shadow (slightly offset)
-        graphics.setColor(Color.BLACK);
-        graphics.drawString(displayText, x + 2, y + 2);
+    private void renderDisplayText(Graphics2D graphics, DisplayState state, ResolvedSettings settings)
+    {
+        String displayText = state.getText();
+        if (displayText == null)
+        {
+            return;
+        }
 
         // Determine text color - flash if needed
-        Color textColor = config.fontColor();
-        if (plugin.shouldFlash())
+        Color textColor = settings.getFontColor();
+        if (state.isFlash())
         {
-            // Flash between normal color and flash color based on time
-            long currentTime = System.currentTimeMillis();
-            boolean flashState = (currentTime / 500) % 2 == 0; // Flash every 500ms
-            textColor = flashState ? config.flashColor() : config.fontColor();
+            // Flash between normal color and flash color based on game time
+            TickClock clock = plugin.getClock();
+            long gameMillis = (long) clock.getTick() * TickClock.TICK_MILLIS + clock.getMillisIntoTick();
+            boolean flashState = (gameMillis / FLASH_MILLIS) % 2 == 0;
+            textColor = flashState ? settings.getFlashColor() : settings.getFontColor();
         }
-        
-        // Draw main text
-        graphics.setColor(textColor);
-        graphics.drawString(displayText, x, y);
+
+        // Text and shadow are only rasterized again when text, font or color change
+        textSprite.draw(graphics, displayText, settings.getFont(), textColor, canvasSize.width / 2, canvasSize.height / 2);
     }
-}
\ No newline at end of file
+}
@@ -6,13 +6,30 @@ import lombok.extern.slf4j.Slf4j;
 import net.runelite.api.Actor;
 import net.runelite.api.ChatMessageType;
 import net.runelite.api.Client;
+import net.runelite.api.GameState;
+import net.runelite.api.Hitsplat;
+import net.runelite.api.HitsplatID;
 import net.runelite.api.NPC;
+import net.runelite.api.Player;
+import net.runelite.api.Renderable;
+import net.runelite.api.SoundEffectID;
+import net.runelite.api.events.CanvasSizeChanged;
 import net.runelite.api.events.ChatMessage;
+import net.runelite.api.events.GameStateChanged;
 import net.runelite.api.events.GameTick;
+import net.runelite.api.events.HitsplatApplied;
 import net.runelite.api.events.InteractingChanged;
 import net.runelite.api.events.NpcDespawned;
+import net.runelite.api.events.NpcSpawned;
+import net.runelite.api.events.PlayerDespawned;
+import net.runelite.api.events.PlayerSpawned;
+import net.runelite.api.events.StatChanged;
+import net.runelite.client.Notifier;
+import net.runelite.client.callback.ClientThread;
+import net.runelite.client.callback.Hooks;
 import net.runelite.client.config.ConfigManager;
 import net.runelite.client.eventbus.Subscribe;
+import net.runelite.client.events.ConfigChanged;
 import net.runelite.client.plugins.Plugin;
 import net.runelite.client.plugins.PluginDescriptor;
 import net.runelite.client.ui.overlay.OverlayManager;
@@ -25,32 +42,136 @@ import net.runelite.client.ui.overlay.OverlayManager;
 )
 public class AfkCrabHelperPlugin extends Plugin
 {
+    private static final double MINUTES_PER_TICK = TickClock.TICK_MILLIS / 60_000.0;
+
+    // Client ticks are 20ms, so this many pass in a game tick
+    private static final int CLIENT_TICKS_PER_GAME_TICK = TickClock.TICK_MILLIS / 20;
+
+    // Fewest health bar samples a crab needs to teach the calibration
+    private static final int MIN_CALIBRATION_SAMPLES = 4;
+
+    // Max HP of the Gemstone Crab, hitsplats are counted down from this
+    static final int GEMSTONE_CRAB_HITPOINTS = 10_000;
+
+    // Other clients publish on every hitsplat, older state is from one that left
+    private static final long SHARED_STATE_MAX_AGE_MILLIS = 30_000;
+
+    // Worlds remembered for the hop ranking, and for how long after the last look
+    private static final int WORLD_CACHE_SIZE = 8;
+    private static final long WORLD_CACHE_TTL_MILLIS = 15 * 60_000;
+
     @Inject
     private Client client;
 
     @Inject
     private AfkCrabHelperConfig config;
 
+    @Inject
+    private ClientThread clientThread;
+
     @Inject
     private OverlayManager overlayManager;
 
     @Inject
     private AfkCrabHelperOverlay overlay;
 
-    private boolean isInteractingWithCrab = false;
-    private long lastCrabInteraction = 0;
-    private long overlayStartTime = 0;
-    
+    @Inject
+    private TickClock clock;
+
+    @Inject
+    private Hooks hooks;
+
+    @Inject
+    private Notifier notifier;
+
+    @Inject
+    private PluginMetrics metrics;
+
+    @Inject
+    private AfkCrabHelperMetricsOverlay metricsOverlay;
+
+    @Inject
+    private SessionHistory sessionHistory;
+
+    @Inject
+    private DrainCalibration drainCalibration;
+
+    @Inject
+    private SharedCrabState sharedCrabState;
+
+    @Inject
+    private AfkCrabHelperWorldsOverlay worldsOverlay;
+
+    private final Hooks.RenderableDrawListener drawListener = this::shouldDraw;
+    private boolean worldHidden = false;
+
+    // Attached only in crab areas or with a crab in the scene
+    private boolean active = false;
+    private boolean inCrabRegion = false;
+
     // Crab tracking variables
+    private final CrabRegistry crabs = new CrabRegistry();
+    private TrackingState trackingState = TrackingState.IDLE;
     private NPC currentCrab = null;
-    private int lastSeenHealthRatio = 0;
-    private long timerStartTime = 0;
-    private double initialTimeMinutes = 0.0;
+    private CrabType currentCrabType = null;
+    private int lastSeenHealthRatio = -1;
+    private boolean healthChanged = false;
+    private final DrainEstimator drainEstimator = new DrainEstimator();
+    // Drain calibration bucket of the tracked crab
+    private int calibrationBucket;
+    // Players in the scene, the local player included, kept from spawn events
+    private int playerCount;
+    private final HitpointTracker hitpoints = new HitpointTracker();
+    private final AlertScheduler alerts = new AlertScheduler();
+    private final TextTables textTables = new TextTables();
+    private final SharedCrabState.Entry sharedEntry = new SharedCrabState.Entry();
+    private boolean sharedStatePublished;
+    private final WorldCrabCache worldCrabs = new WorldCrabCache(WORLD_CACHE_SIZE, WORLD_CACHE_TTL_MILLIS);
+    private boolean worldCrabsChanged;
+
+    // XP/hour, kills and uptime over everything tracked since startUp
+    private final SessionStats stats = new SessionStats();
+    private int statsXpHundreds = -1;
+    private int statsKills = -1;
+    private int statsUptimePercent = -1;
+    private String statsText;
+
+    // The session being recorded, from starting on a crab until tracking ends
+    private int sessionStartTick = -1;
+    private long sessionStartMillis;
+    private long sessionStartXp;
+    private CrabType sessionCrabType;
+    private double sessionCrabStartFraction;
+    private double sessionDrained;
+    private int sessionAfkTicks;
+
+    // Tick deadlines for the activation and hide delays
+    private int activeAtTick;
+    private int graceEndTick;
+
+    // Snapshots read by the overlay on the render thread
+    private volatile DisplayState displayState = DisplayState.HIDDEN;
+    private volatile ResolvedSettings settings;
+    private volatile WorldCrabCache.Snapshot worldRanking = WorldCrabCache.Snapshot.EMPTY;
+    // Predicted wall clock time of the next Gemstone Crab on this world, 0 if unknown
+    private volatile long nextGemstoneMillis;
+    // Predicted wall clock time a killed sand or rock crab is back, 0 if unknown
+    private volatile long nextRespawnMillis;
 
     @Override
     protected void startUp() throws Exception
     {
-        overlayManager.add(overlay);
+        settings = ResolvedSettings.from(config);
+        updateMetrics();
+        updateWorldsOverlay();
+        // Queued behind the teardown of a shutDown just before
+        clientThread.invoke(() ->
+        {
+            stats.reset();
+            sessionHistory.start();
+            updateSharedState();
+        });
+        clientThread.invokeLater(this::registerScene);
         log.info("AFK Crab Helper started!");
     }
 
@@ -58,183 +179,766 @@ public class AfkCrabHelperPlugin extends Plugin
     protected void shutDown() throws Exception
     {
         overlayManager.remove(overlay);
-        isInteractingWithCrab = false;
+        overlayManager.remove(metricsOverlay);
+        overlayManager.remove(worldsOverlay);
+        metrics.setEnabled(false);
+        clientThread.invoke(this::tearDown);
         log.info("AFK Crab Helper stopped!");
     }
 
+    /**
+     * Ends tracking on the client thread, which alone records sessions and writes
+     * the shared state, and only then stops them.
+     */
+    private void tearDown()
+    {
+        setWorldHidden(false);
+        active = false;
+        inCrabRegion = false;
+        resetTracking();
+        crabs.clear();
+        sessionHistory.stop();
+        sharedCrabState.stop();
+    }
+
+    private void registerScene()
+    {
+        // Crabs that spawned before the plugin started never sent NpcSpawned
+        if (client.getGameState() != GameState.LOGGED_IN)
+        {
+            return;
+        }
+
+        for (NPC npc : client.getNpcs())
+        {
+            CrabType type = classify(npc);
+            if (type != null)
+            {
+                crabs.add(npc, type, clock.getTick());
+            }
+        }
+        // Counted once here, then kept up to date from spawn events
+        playerCount = client.getPlayers().size();
+        inCrabRegion = settings.getCrabRegions().containsAny(client.getMapRegions());
+        updateActive();
+
+        // Nor did a fight that was already going on
+        Player player = client.getLocalPlayer();
+        if (active && player != null)
+        {
+            onTargetChanged(player.getInteracting());
+        }
+    }
+
+    private void updateMetrics()
+    {
+        boolean enabled = config.showMetrics();
+        if (enabled == metrics.isEnabled())
+        {
+            return;
+        }
+
+        metrics.setEnabled(enabled);
+        if (enabled)
+        {
+            overlayManager.add(metricsOverlay);
+        }
+        else
+        {
+            overlayManager.remove(metricsOverlay);
+        }
+    }
+
+    private void updateWorldsOverlay()
+    {
+        if (settings.isShowCrabWorlds())
+        {
+            // Catch up on what was seen while the panel was off
+            worldCrabsChanged = true;
+            overlayManager.add(worldsOverlay);
+        }
+        else
+        {
+            overlayManager.remove(worldsOverlay);
+        }
+    }
+
+    private void updateSharedState()
+    {
+        if (settings.isShareCrabState())
+        {
+            sharedCrabState.start();
+        }
+        else
+        {
+            withdrawSharedState();
+            sharedCrabState.stop();
+        }
+    }
+
+    private void updateActive()
+    {
+        boolean shouldBeActive = inCrabRegion || crabs.size() > 0;
+        if (shouldBeActive == active)
+        {
+            return;
+        }
+
+        active = shouldBeActive;
+        if (active)
+        {
+            overlayManager.add(overlay);
+        }
+        else
+        {
+            overlayManager.remove(overlay);
+            resetTracking();
+        }
+        log.debug("AFK Crab Helper {}", active ? "attached" : "detached");
+    }
+
+    @Subscribe
+    public void onGameStateChanged(GameStateChanged event)
+    {
+        GameState state = event.getGameState();
+        if (state == GameState.LOGIN_SCREEN || state == GameState.HOPPING)
+        {
+            // The tick count is not comparable across sessions
+            resetTracking();
+            if (state == GameState.LOGIN_SCREEN)
+            {
+                // The next account to log in starts from its own XP
+                stats.clearBaselines();
+            }
+            crabs.clear();
+            playerCount = 0;
+            inCrabRegion = false;
+            updateActive();
+        }
+        else if (state == GameState.LOGGED_IN)
+        {
+            // Logged in or finished loading a new region
+            inCrabRegion = settings.getCrabRegions().containsAny(client.getMapRegions());
+            updateActive();
+        }
+    }
+
+    @Subscribe
+    public void onCanvasSizeChanged(CanvasSizeChanged event)
+    {
+        overlay.invalidateLayout();
+    }
+
+    @Subscribe
+    public void onConfigChanged(ConfigChanged event)
+    {
+        if (!AfkCrabHelperConfig.GROUP.equals(event.getGroup()))
+        {
+            return;
+        }
+
+        // Only the snapshot swap happens here. Config changes arrive on the thread
+        // that made them, and tracking state belongs to the client thread
+        settings = ResolvedSettings.from(config);
+        boolean customIdsChanged = event.getKey().startsWith("custom");
+        clientThread.invoke(() -> applySettings(customIdsChanged));
+    }
+
+    private void applySettings(boolean customIdsChanged)
+    {
+        updateMetrics();
+        updateSharedState();
+        updateWorldsOverlay();
+        if (customIdsChanged)
+        {
+            // Custom crab or region ids changed, so cached crab types may be stale
+            crabs.clear();
+            registerScene();
+            if (currentCrab != null)
+            {
+                currentCrabType = classify(currentCrab);
+            }
+        }
+        if (currentCrab != null)
+        {
+            // The threshold may have changed
+            scheduleAlerts();
+        }
+        updateDisplayState();
+    }
+
     @Subscribe
     public void onGameTick(GameTick gameTick)
     {
-        if (client.getLocalPlayer() == null)
+        long start = metrics.begin();
+        // Ticks are counted even while idle, so event ticks stay on the game's timeline
+        clock.onGameTick();
+        updateTracking();
+        if (active && client.getGameState() == GameState.LOGGED_IN)
+        {
+            // Idle time at the crabs counts against uptime and XP/h as well
+            stats.onTick(trackingState == TrackingState.ACTIVE || trackingState == TrackingState.ARMING);
+        }
+        if (settings.isShowCrabWorlds())
+        {
+            updateWorldRanking();
+        }
+        metrics.end(PluginMetrics.Metric.GAME_TICK, start);
+    }
+
+    private void updateWorldRanking()
+    {
+        long now = System.currentTimeMillis();
+        if (worldCrabsChanged)
+        {
+            worldCrabsChanged = false;
+            worldRanking = worldCrabs.snapshot(now);
+        }
+
+        int tick = clock.getTick();
+        nextGemstoneMillis = toMillis(crabs.getGemstoneRespawnTick(), tick, now);
+        nextRespawnMillis = toMillis(crabs.getNextRespawnTick(tick), tick, now);
+    }
+
+    /**
+     * Wall clock time of a future tick, or 0 if it is unknown or has passed.
+     */
+    private static long toMillis(int futureTick, int tick, long nowMillis)
+    {
+        int ticksLeft = futureTick - tick;
+        return futureTick != CrabRegistry.UNKNOWN && ticksLeft > 0
+            ? nowMillis + (long) ticksLeft * TickClock.TICK_MILLIS
+            : 0;
+    }
+
+    private void updateTracking()
+    {
+        if (!active || trackingState == TrackingState.IDLE)
         {
             return;
         }
 
-        checkCrabInteraction();
-        checkCrabStatus();
+        int tick = clock.getTick();
+        switch (trackingState)
+        {
+            case ARMING:
+                if (tick >= activeAtTick)
+                {
+                    setTrackingState(TrackingState.ACTIVE);
+                }
+                break;
+            case GRACE:
+                if (tick > graceEndTick)
+                {
+                    resetTracking();
+                    return;
+                }
+                break;
+            default:
+                break;
+        }
+
+        if (healthChanged)
+        {
+            healthChanged = false;
+            sampleHealth();
+            scheduleAlerts();
+            recordCrabState();
+        }
+        if (sessionStartTick >= 0
+            && Math.min(client.getMouseIdleTicks(), client.getKeyboardIdleTicks()) >= CLIENT_TICKS_PER_GAME_TICK)
+        {
+            sessionAfkTicks++;
+        }
+        if (trackingState == TrackingState.ACTIVE && alerts.poll(tick))
+        {
+            fireLowHpAlert();
+        }
+        updateDisplayState();
     }
 
-    private void checkCrabInteraction()
+    private void updateDisplayState()
     {
-        Actor target = client.getLocalPlayer().getInteracting();
-        boolean currentlyInteractingWithCrab = false;
-        NPC targetCrab = null;
+        boolean visible = isShowingOverlay();
+        String text = null;
+        if (visible)
+        {
+            long start = metrics.begin();
+            text = getDisplayText();
+            metrics.end(PluginMetrics.Metric.DISPLAY_TEXT, start);
+        }
+        boolean flash = visible && shouldFlash();
+        String statsLine = visible && settings.isShowSessionStats() ? getStatsText() : null;
 
-        if (target instanceof NPC)
+        // Keep the previous snapshot if nothing changed
+        if (!displayState.sameAs(visible, text, statsLine, flash))
         {
-            NPC npc = (NPC) target;
-            String npcName = npc.getName();
-            
-            if (npcName != null && isCrabNpc(npcName))
+            displayState = new DisplayState(visible, text, statsLine, flash);
+        }
+        setWorldHidden(visible && settings.isHideWorld());
+    }
+
+    private void setWorldHidden(boolean hidden)
+    {
+        if (worldHidden == hidden)
+        {
+            return;
+        }
+
+        // The listener is only registered while needed so it costs nothing otherwise
+        worldHidden = hidden;
+        if (hidden)
+        {
+            hooks.registerRenderableDrawListener(drawListener);
+        }
+        else
+        {
+            hooks.unregisterRenderableDrawListener(drawListener);
+        }
+    }
+
+    private boolean shouldDraw(Renderable renderable, boolean drawingUI)
+    {
+        // Keep drawing entities shown in the interface, such as the equipment screen
+        return drawingUI;
+    }
+
+    private void onTargetChanged(Actor target)
+    {
+        CrabType type = target instanceof NPC ? crabType((NPC) target) : null;
+        if (type == null)
+        {
+            // Stopped fighting the crab - keep the overlay for the hide delay
+            if (trackingState != TrackingState.IDLE && trackingState != TrackingState.GRACE)
             {
-                currentlyInteractingWithCrab = true;
-                lastCrabInteraction = System.currentTimeMillis();
-                targetCrab = npc;
+                graceEndTick = clock.getTick() + settings.getHideDelayTicks();
+                setTrackingState(TrackingState.GRACE);
+            }
+            return;
+        }
 
-                int npcHealthRatio = npc.getHealthRatio();
+        // Interaction events arrive before the tick they take effect on
+        int nextTick = clock.getTick() + 1;
+        if (trackingState == TrackingState.IDLE)
+        {
+            activeAtTick = nextTick + settings.getActivationDelayTicks();
+        }
 
-                // If this is a new crab or we weren't tracking before, update tracking
-                if (currentCrab != npc || lastSeenHealthRatio != npcHealthRatio)
+        NPC npc = (NPC) target;
+        crabs.add(npc, type, clock.getTick());
+        if (npc != currentCrab)
+        {
+            if (currentCrab != null)
+            {
+                if (hitpoints.isTracking())
                 {
-                    currentCrab = npc;
-                    lastSeenHealthRatio = npcHealthRatio;
-                    // Start countdown timer
-                    timerStartTime = System.currentTimeMillis();
-                    // Calculate initial time based on health%
-                    int healthRatio = Math.max(0, npcHealthRatio);
-                    int healthScale = Math.max(1, npc.getHealthScale());
-                    
-                    // If health ratio is 0 or very low, assume full health (just spawned)
-                    if (healthRatio <= 0)
-                    {
-                        healthRatio = healthScale; // Assume full health
-                    }
-                    
-                    // After some testing, subtracting 0.5 give more accurate timing
-                    double healthPercent = (healthRatio - 0.5) / healthScale * 100.0;
-                    initialTimeMinutes = Math.max(0, healthPercent / 10.0);
+                    // Keep the count in case the player comes back to this crab
+                    crabs.setHitpoints(currentCrab, hitpoints.getHitpoints());
                 }
+                sessionDrained += sessionCrabStartFraction - getHealthFraction();
+                learnDrain();
             }
+            startTracking(npc, type);
+            sessionCrabStartFraction = getHealthFraction();
         }
-
-        // Check if we recently interacted with a crab (within hide delay period)
-        long timeSinceLastInteraction = System.currentTimeMillis() - lastCrabInteraction;
-        if (timeSinceLastInteraction <= config.hideDelay() * 1000)
+        if (trackingState == TrackingState.IDLE)
         {
-            currentlyInteractingWithCrab = true;
+            startSession(type);
         }
-        
-        // Also check if we have a valid crab target and are still actively interacting
-        // Only keep overlay up if we're actually still targeting the crab
-        if (currentCrab != null && client.getNpcs().contains(currentCrab) && target == currentCrab)
+        else
+        {
+            // Returning to the same crab, its HP may have changed meanwhile
+            healthChanged = true;
+        }
+
+        setTrackingState(nextTick >= activeAtTick ? TrackingState.ACTIVE : TrackingState.ARMING);
+    }
+
+    private void startTracking(NPC npc, CrabType type)
+    {
+        withdrawSharedState();
+        currentCrab = npc;
+        currentCrabType = type;
+        healthChanged = false;
+        drainEstimator.reset();
+
+        // More players around drain the crab faster
+        Player player = client.getLocalPlayer();
+        calibrationBucket = DrainCalibration.bucket(type, playerCount, player != null ? player.getCombatLevel() : 0);
+        drainEstimator.setPriorDrainPerTick(drainCalibration.getDrainPerTick(type, calibrationBucket));
+
+        // The bar may be hidden while the crab was last hit by someone else
+        lastSeenHealthRatio = npc.getHealthRatio();
+        int healthScale = Math.max(1, npc.getHealthScale());
+        if (lastSeenHealthRatio < 0 && crabs.getHealthRatio(npc) >= 0)
         {
-            currentlyInteractingWithCrab = true;
+            lastSeenHealthRatio = crabs.getHealthRatio(npc);
+            healthScale = Math.max(1, crabs.getHealthScale(npc));
         }
 
-        // Handle activation delay for overlay
-        if (currentlyInteractingWithCrab && !isInteractingWithCrab)
+        // If the health bar is not showing yet, assume full health (just spawned)
+        int healthRatio = lastSeenHealthRatio >= 0 ? lastSeenHealthRatio : healthScale;
+        drainEstimator.addSample(clock.getTick(), healthRatio, healthScale);
+
+        // Only the Gemstone Crab has a known max HP to count hitsplats against
+        if (type == CrabType.GEMSTONE_CRAB)
         {
-            // Starting interaction - set overlay start time
-            overlayStartTime = System.currentTimeMillis();
+            // Another local client on the crab knows more than a count from earlier
+            int counted = readSharedState(npc);
+            if (counted < 0)
+            {
+                counted = crabs.getHitpoints(npc);
+            }
+            hitpoints.resume(GEMSTONE_CRAB_HITPOINTS, counted >= 0 ? counted : GEMSTONE_CRAB_HITPOINTS,
+                lastSeenHealthRatio, healthScale, clock.getTick());
         }
-        else if (!currentlyInteractingWithCrab && isInteractingWithCrab)
+        else
         {
-            // Stopping interaction - reset crab tracking
-            currentCrab = null;
-            timerStartTime = 0;
-            initialTimeMinutes = 0.0;
+            hitpoints.clear();
         }
-        
-        // Update overlay start time if we don't have one but should be showing
-        if (currentlyInteractingWithCrab && overlayStartTime == 0)
+
+        alerts.reset();
+        scheduleAlerts();
+    }
+
+    /**
+     * Takes the drain rate another local client published for the crab and returns
+     * the HP it implies now, or -1 if there is none.
+     */
+    private int readSharedState(NPC npc)
+    {
+        long now = System.currentTimeMillis();
+        if (!settings.isShareCrabState()
+            || !sharedCrabState.read(client.getWorld(), npc.getIndex(), now, SHARED_STATE_MAX_AGE_MILLIS, sharedEntry))
         {
-            overlayStartTime = System.currentTimeMillis();
+            return -1;
         }
 
-        isInteractingWithCrab = currentlyInteractingWithCrab;
+        drainEstimator.setPriorDrainPerTick(sharedEntry.drainPerTick);
+        // Only the health bar can say the crab is dead
+        return Math.max(1, (int) Math.round(sharedEntry.fractionAt(now) * GEMSTONE_CRAB_HITPOINTS));
     }
-    
-    private void checkCrabStatus()
+
+    /**
+     * Remembers the tracked Gemstone Crab's state for this world and shares it with
+     * other local clients.
+     */
+    private void recordCrabState()
     {
-        // Check if our tracked crab is still valid
-        if (currentCrab != null)
+        if (currentCrabType != CrabType.GEMSTONE_CRAB)
+        {
+            return;
+        }
+
+        int world = client.getWorld();
+        long now = System.currentTimeMillis();
+        double drainPerTick = drainEstimator.getDrainPerTick();
+        double fraction = hitpoints.estimateFraction(clock.getTick(), drainPerTick);
+        worldCrabs.observe(world, fraction, drainPerTick, now);
+        worldCrabsChanged = true;
+
+        if (settings.isShareCrabState() && drainEstimator.hasFit())
+        {
+            sharedCrabState.publish(world, currentCrab.getIndex(), fraction, drainPerTick, now);
+            sharedStatePublished = true;
+        }
+    }
+
+    /**
+     * Remembers a Gemstone Crab leaving the scene, whether it died or the player
+     * walked away, along with what it was last seen at.
+     */
+    private void rememberDespawnedCrab(NPC npc)
+    {
+        if (crabs.getType(npc) != CrabType.GEMSTONE_CRAB)
+        {
+            return;
+        }
+
+        double fraction;
+        double drainPerTick;
+        if (npc == currentCrab)
+        {
+            drainPerTick = drainEstimator.getDrainPerTick();
+            fraction = getHealthFraction();
+        }
+        else
         {
-            // Check if crab is no longer valid (burrowed or moved away)
-            if (!client.getNpcs().contains(currentCrab))
+            int healthRatio = crabs.getHealthRatio(npc);
+            if (healthRatio < 0 && !npc.isDead())
+            {
+                // Never saw its health
+                return;
+            }
+            int bucket = DrainCalibration.bucket(CrabType.GEMSTONE_CRAB, playerCount, 0);
+            drainPerTick = drainCalibration.getDrainPerTick(CrabType.GEMSTONE_CRAB, bucket);
+            if (drainPerTick <= 0)
+            {
+                // Not calibrated yet, the cache ignores a crab without a drain rate
+                drainPerTick = DrainEstimator.DEFAULT_DRAIN_PER_TICK;
+            }
+
+            // The bar was read at the last hit, or when the crab was first seen
+            int seenTick = crabs.getLastHitTick(npc);
+            if (seenTick == CrabRegistry.UNKNOWN)
             {
-                // Reset tracking
-                isInteractingWithCrab = false;
-                currentCrab = null;
-                timerStartTime = 0;
-                initialTimeMinutes = 0.0;
+                seenTick = crabs.getSpawnTick(npc);
             }
+            fraction = (double) Math.max(0, healthRatio) / Math.max(1, crabs.getHealthScale(npc))
+                - drainPerTick * Math.max(0, clock.getTick() - seenTick);
         }
+
+        worldCrabs.observe(client.getWorld(), npc.isDead() ? 0 : fraction, drainPerTick, System.currentTimeMillis());
+        worldCrabsChanged = true;
     }
 
-    private boolean isCrabNpc(String npcName)
+    private void withdrawSharedState()
     {
-        if (npcName == null) return false;
-        String lowerName = npcName.toLowerCase();
-        return lowerName.equals("sand crab") ||
-               lowerName.equals("rock crab") ||
-               lowerName.equals("ammonite crab") ||
-               lowerName.equals("gemstone crab");
+        if (sharedStatePublished)
+        {
+            sharedStatePublished = false;
+            sharedCrabState.clear();
+        }
     }
-    
-    private boolean isGemstoneCrab(String npcName)
+
+    private void sampleHealth()
     {
-        return npcName != null && npcName.toLowerCase().equals("gemstone crab");
+        int healthRatio = currentCrab.getHealthRatio();
+        if (healthRatio < 0 || healthRatio == lastSeenHealthRatio)
+        {
+            return;
+        }
+
+        if (lastSeenHealthRatio < 0)
+        {
+            // The first real health bar replaces the full health assumption
+            drainEstimator.reset();
+        }
+        lastSeenHealthRatio = healthRatio;
+        int healthScale = Math.max(1, currentCrab.getHealthScale());
+        // A new health bar segment feeds the drain estimate and corrects the counted HP
+        drainEstimator.addSample(clock.getTick(), healthRatio, healthScale);
+        hitpoints.onHealthBar(healthRatio, healthScale, clock.getTick());
+
+        if (healthRatio == 0)
+        {
+            stats.onCrabKilled();
+        }
+        if (healthRatio == 0 && trackingState == TrackingState.ACTIVE)
+        {
+            setTrackingState(TrackingState.CRAB_DEAD);
+        }
     }
-    
+
+    private void scheduleAlerts()
+    {
+        // Only the Gemstone Crab has a timer to predict from
+        if (currentCrabType != CrabType.GEMSTONE_CRAB || drainEstimator.isEmpty())
+        {
+            return;
+        }
+
+        int tick = clock.getTick();
+        double drainPerTick = drainEstimator.getDrainPerTick();
+        double fraction = hitpoints.isTracking()
+            ? hitpoints.estimateFraction(tick, drainPerTick)
+            : drainEstimator.estimateFraction(tick);
+        alerts.schedule(tick, fraction, drainPerTick, settings.getFlashThreshold() / 100.0);
+    }
+
+    private void fireLowHpAlert()
+    {
+        log.debug("Low HP alert at tick {}", clock.getTick());
+        if (settings.isLowHpNotification())
+        {
+            notifier.notify("Your Gemstone Crab is below " + settings.getFlashThreshold() + "% HP");
+        }
+        if (settings.isLowHpSound())
+        {
+            client.playSoundEffect(SoundEffectID.UI_BOOP);
+        }
+    }
+
+    private void setTrackingState(TrackingState state)
+    {
+        if (trackingState != state)
+        {
+            log.debug("Crab tracking {} -> {}", trackingState, state);
+            trackingState = state;
+        }
+    }
+
+    private void learnDrain()
+    {
+        // Only a fit over enough of the crab's life says more than the prior
+        if (drainEstimator.hasFit() && drainEstimator.getSampleCount() >= MIN_CALIBRATION_SAMPLES)
+        {
+            drainCalibration.learn(currentCrabType, calibrationBucket, drainEstimator.getDrainPerTick());
+        }
+    }
+
+    private void startSession(CrabType type)
+    {
+        sessionStartTick = clock.getTick();
+        sessionStartMillis = System.currentTimeMillis();
+        sessionStartXp = client.getOverallExperience();
+        sessionCrabType = type;
+        sessionDrained = 0;
+        sessionAfkTicks = 0;
+    }
+
+    private void endSession()
+    {
+        if (currentCrab != null)
+        {
+            sessionDrained += sessionCrabStartFraction - getHealthFraction();
+        }
+
+        if (settings.isRecordSessions())
+        {
+            int xpGained = (int) Math.max(0, client.getOverallExperience() - sessionStartXp);
+            int hpDrained = (int) Math.round(Math.max(0, sessionDrained) * 1000);
+            sessionHistory.record(new SessionRecord(sessionStartMillis, sessionStartTick, clock.getTick(),
+                sessionCrabType, client.getWorld(), hpDrained, xpGained, sessionAfkTicks));
+        }
+        sessionStartTick = -1;
+    }
+
+    private void resetTracking()
+    {
+        if (sessionStartTick >= 0)
+        {
+            endSession();
+        }
+        if (currentCrab != null && hitpoints.isTracking())
+        {
+            // Keep the count in case the player comes back to this crab
+            crabs.setHitpoints(currentCrab, hitpoints.getHitpoints());
+        }
+        if (currentCrab != null)
+        {
+            learnDrain();
+        }
+        withdrawSharedState();
+        setTrackingState(TrackingState.IDLE);
+        currentCrab = null;
+        currentCrabType = null;
+        lastSeenHealthRatio = -1;
+        healthChanged = false;
+        drainEstimator.reset();
+        hitpoints.clear();
+        alerts.reset();
+        displayState = DisplayState.HIDDEN;
+        setWorldHidden(false);
+    }
+
+    private CrabType crabType(NPC npc)
+    {
+        CrabType type = crabs.getType(npc);
+        return type != null ? type : classify(npc);
+    }
+
+    private CrabType classify(NPC npc)
+    {
+        return settings.getCrabMatcher().classify(npc.getId());
+    }
+
     @Subscribe
     public void onInteractingChanged(InteractingChanged event)
     {
-        // Track when player starts interacting with something new
-        if (event.getSource() == client.getLocalPlayer())
+        if (active && event.getSource() == client.getLocalPlayer())
         {
-            Actor newTarget = event.getTarget();
-            if (newTarget instanceof NPC)
-            {
-                NPC npc = (NPC) newTarget;
-                if (isCrabNpc(npc.getName()))
-                {
-                    // Starting to interact with a crab
-                    lastCrabInteraction = System.currentTimeMillis();
-                }
-            }
+            onTargetChanged(event.getTarget());
         }
     }
-    
+
+    @Subscribe
+    public void onHitsplatApplied(HitsplatApplied event)
+    {
+        Actor actor = event.getActor();
+        if (!(actor instanceof NPC))
+        {
+            return;
+        }
+
+        Hitsplat hitsplat = event.getHitsplat();
+        int damage = hitsplat.getHitsplatType() != HitsplatID.HEAL ? hitsplat.getAmount() : 0;
+        crabs.onHit((NPC) actor, damage, clock.getTick());
+
+        // Health bar updates arrive with hitsplats, read it once on the next tick
+        if (actor == currentCrab)
+        {
+            healthChanged = true;
+            hitpoints.onDamage(damage, clock.getTick());
+        }
+    }
+
+    @Subscribe
+    public void onStatChanged(StatChanged event)
+    {
+        // Gains only count while on a crab, but the baseline follows every change
+        stats.onXp(event.getSkill(), event.getXp(), trackingState != TrackingState.IDLE);
+    }
+
+    @Subscribe
+    public void onNpcSpawned(NpcSpawned event)
+    {
+        NPC npc = event.getNpc();
+        CrabType type = classify(npc);
+        if (type != null)
+        {
+            crabs.add(npc, type, clock.getTick());
+            updateActive();
+        }
+    }
+
+    @Subscribe
+    public void onPlayerSpawned(PlayerSpawned event)
+    {
+        playerCount++;
+    }
+
+    @Subscribe
+    public void onPlayerDespawned(PlayerDespawned event)
+    {
+        playerCount = Math.max(0, playerCount - 1);
+    }
+
     @Subscribe
     public void onNpcDespawned(NpcDespawned event)
     {
         NPC npc = event.getNpc();
-        
-        // Check if it's our current crab that despawned
+        rememberDespawnedCrab(npc);
+        crabs.remove(npc, clock.getTick());
+
+        // Crab despawned - stop overlay immediately
         if (npc == currentCrab)
         {
-            // Crab despawned - stop overlay immediately
-            isInteractingWithCrab = false;
-            currentCrab = null;
-            timerStartTime = 0;
-            initialTimeMinutes = 0.0;
+            if (npc.isDead() && lastSeenHealthRatio != 0)
+            {
+                // Died before an empty health bar was read
+                stats.onCrabKilled();
+            }
+            resetTracking();
         }
+        updateActive();
     }
-    
-    
 
     public boolean isShowingOverlay()
     {
-        if (!isInteractingWithCrab)
+        switch (trackingState)
         {
-            return false;
+            case ACTIVE:
+            case CRAB_DEAD:
+                return true;
+            case GRACE:
+                // Only if the activation delay had already passed
+                return clock.getTick() >= activeAtTick;
+            default:
+                return false;
         }
-        
-        // Check activation delay
-        long timeSinceOverlayStart = System.currentTimeMillis() - overlayStartTime;
-        return timeSinceOverlayStart >= config.activationDelay() * 1000;
     }
-    
+
     public String getDisplayText()
     {
         if (currentCrab == null)
@@ -243,12 +947,10 @@ public class AfkCrabHelperPlugin extends Plugin
         }
         
         // Check if this is a Gemstone Crab
-        boolean isGemstone = isGemstoneCrab(currentCrab.getName());
+        boolean isGemstone = currentCrabType == CrabType.GEMSTONE_CRAB;
         
         // Get crab health info
-        int healthRatio = Math.max(0, currentCrab.getHealthRatio());
-        int healthScale = Math.max(1, currentCrab.getHealthScale());
-        double healthPercent = (double) healthRatio / healthScale * 100.0;
+        double healthPercent = getHealthPercent();
         
         // Only show "Crab dead" for Gemstone Crabs
         if (healthPercent <= 0 && isGemstone)
@@ -268,80 +970,154 @@ public class AfkCrabHelperPlugin extends Plugin
             return null;
         }
         
-        AfkCrabHelperConfig.DisplayMode mode = config.displayMode();
-        
-        switch (mode)
+        // Strings come from lookup tables so an unchanged tick formats nothing
+        switch (settings.getDisplayMode())
         {
             case HP_PERCENTAGE:
-                return String.format("%.1f%% HP", healthPercent);
+                return textTables.hp(getHealthTenths());
                 
             case TIME_REMAINING:
-                // Use countdown timer if we have one, otherwise calculate from health%
-                double minutes;
-                if (timerStartTime > 0) {
-                    // Calculate remaining time from countdown
-                    long elapsedMs = System.currentTimeMillis() - timerStartTime;
-                    double elapsedMinutes = elapsedMs / 1000.0 / 60.0;
-                    minutes = Math.max(0, initialTimeMinutes - elapsedMinutes);
-                } else {
-                    // Fallback to health% calculation
-                    minutes = healthPercent / 10.0;
-                }
-                
-                if (minutes < 1.0) {
-                    return String.format("%.0f seconds", minutes * 60);
-                } else {
-                    int mins = (int) minutes;
-                    int secs = (int) ((minutes - mins) * 60);
-                    return String.format("%d:%02d remaining", mins, secs);
-                }
+                return textTables.remaining(getMinutesRemaining(healthPercent), getBandMinutes(healthPercent));
                 
             case BOTH:
-                // Use countdown timer if we have one, otherwise calculate from health%
-                double mins;
-                if (timerStartTime > 0) {
-                    // Calculate remaining time from countdown
-                    long elapsedMs = System.currentTimeMillis() - timerStartTime;
-                    double elapsedMinutes = elapsedMs / 1000.0 / 60.0;
-                    mins = Math.max(0, initialTimeMinutes - elapsedMinutes);
-                } else {
-                    // Fallback to health% calculation
-                    mins = healthPercent / 10.0;
-                }
-                
-                String timeStr;
-                if (mins < 1.0) {
-                    timeStr = String.format("%.0fs", mins * 60);
-                } else {
-                    int m = (int) mins;
-                    int s = (int) ((mins - m) * 60);
-                    timeStr = String.format("%d:%02d", m, s);
-                }
-                return String.format("%.1f%% HP | %s", healthPercent, timeStr);
+                return textTables.hpAndTime(getHealthTenths(), getMinutesRemaining(healthPercent),
+                    getBandMinutes(healthPercent));
                 
             default:
                 return null;
         }
     }
+
+    private double getMinutesRemaining(double healthPercent)
+    {
+        if (!drainEstimator.isEmpty())
+        {
+            // Use the estimated drain rate
+            return getEtaTicks() * MINUTES_PER_TICK;
+        }
+        // Fallback to health% calculation
+        return healthPercent / 10.0;
+    }
     
+    /**
+     * Half width of the band around the time remaining, from how well the drain fits.
+     */
+    private double getBandMinutes(double healthPercent)
+    {
+        return getMinutesRemaining(healthPercent) * drainEstimator.getRelativeDrainError();
+    }
+
+    /**
+     * "45.2k XP/h | 12 kills | 98% uptime", rebuilt only when a shown value changes.
+     */
+    String getStatsText()
+    {
+        int xpHundreds = (int) Math.round(stats.getXpPerHour() / 100);
+        int kills = stats.getCrabsKilled();
+        int uptimePercent = (int) Math.round(stats.getUptime() * 100);
+        if (statsText == null || xpHundreds != statsXpHundreds || kills != statsKills || uptimePercent != statsUptimePercent)
+        {
+            statsXpHundreds = xpHundreds;
+            statsKills = kills;
+            statsUptimePercent = uptimePercent;
+            statsText = (xpHundreds / 10) + "." + (xpHundreds % 10) + "k XP/h | "
+                + kills + (kills == 1 ? " kill | " : " kills | ")
+                + uptimePercent + "% uptime";
+        }
+        return statsText;
+    }
+
+    WorldCrabCache.Snapshot getWorldRanking()
+    {
+        return worldRanking;
+    }
+
+    long getNextGemstoneMillis()
+    {
+        return nextGemstoneMillis;
+    }
+
+    long getNextRespawnMillis()
+    {
+        return nextRespawnMillis;
+    }
+
+    SessionStats getStats()
+    {
+        return stats;
+    }
+
     public boolean shouldFlash()
     {
-        if (!config.enableFlash() || currentCrab == null)
+        if (!settings.isFlashEnabled() || currentCrab == null)
         {
             return false;
         }
         
         // Only flash for Gemstone Crabs
-        if (!isGemstoneCrab(currentCrab.getName()))
+        if (currentCrabType != CrabType.GEMSTONE_CRAB)
         {
             return false;
         }
         
+        // Switched on by the scheduled low HP alert
+        return alerts.isLowHp();
+    }
+
+    private double getHealthFraction()
+    {
+        if (hitpoints.isTracking())
+        {
+            return hitpoints.getFraction();
+        }
+
+        int healthRatio = currentCrab.getHealthRatio();
+        if (healthRatio < 0)
+        {
+            healthRatio = lastSeenHealthRatio;
+        }
+        // Assume full health until a health bar has been seen
+        return healthRatio < 0 ? 1 : (double) healthRatio / Math.max(1, currentCrab.getHealthScale());
+    }
+
+    private double getHealthPercent()
+    {
+        if (hitpoints.isTracking())
+        {
+            return hitpoints.getFraction() * 100.0;
+        }
+
         int healthRatio = Math.max(0, currentCrab.getHealthRatio());
         int healthScale = Math.max(1, currentCrab.getHealthScale());
-        double healthPercent = (double) healthRatio / healthScale * 100.0;
-        
-        return healthPercent <= config.flashThreshold();
+        return (double) healthRatio / healthScale * 100.0;
+    }
+
+    /**
+     * Health in tenths of a percent, rounded half up.
+     */
+    private int getHealthTenths()
+    {
+        if (hitpoints.isTracking())
+        {
+            int max = hitpoints.getMaxHitpoints();
+            return (Math.max(0, hitpoints.getHitpoints()) * 1000 + max / 2) / max;
+        }
+
+        int healthRatio = Math.max(0, currentCrab.getHealthRatio());
+        int healthScale = Math.max(1, currentCrab.getHealthScale());
+        return (healthRatio * 1000 + healthScale / 2) / healthScale;
+    }
+
+    private double getEtaTicks()
+    {
+        if (!hitpoints.isTracking())
+        {
+            return drainEstimator.getEtaTicks(clock.getTick());
+        }
+
+        // Counted HP is finer than the health bar, so only take the drain rate from the fit
+        double drainPerTick = drainEstimator.getDrainPerTick();
+        return hitpoints.estimateFraction(clock.getTick(), drainPerTick) / drainPerTick;
     }
     
     public NPC getCurrentCrab()
@@ -349,6 +1125,41 @@ public class AfkCrabHelperPlugin extends Plugin
         return currentCrab;
     }
 
+    DisplayState getDisplayState()
+    {
+        return displayState;
+    }
+
+    ResolvedSettings getSettings()
+    {
+        return settings;
+    }
+
+    TickClock getClock()
+    {
+        return clock;
+    }
+
+    CrabRegistry getCrabs()
+    {
+        return crabs;
+    }
+
+    TrackingState getTrackingState()
+    {
+        return trackingState;
+    }
+
+    boolean isActive()
+    {
+        return active;
+    }
+
+    boolean isWorldHidden()
+    {
+        return worldHidden;
+    }
+
     @Provides
     AfkCrabHelperConfig provideConfig(ConfigManager configManager)
     {
@@ -0,0 +1,86 @@
+package com.afkcrabhelper;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import javax.inject.Inject;
+import net.runelite.api.Client;
+import net.runelite.client.ui.overlay.OverlayPanel;
+import net.runelite.client.ui.overlay.OverlayPosition;
+import net.runelite.client.ui.overlay.components.LineComponent;
+import net.runelite.client.ui.overlay.components.TitleComponent;
+
+/**
+ * Panel of recently visited worlds ranked by the predicted time left on their
+ * Gemstone Crab, from {@link WorldCrabCache}, and when the next Gemstone Crab on
+ * this world or the next killed sand or rock crab nearby is due back.
+ */
+class AfkCrabHelperWorldsOverlay extends OverlayPanel
+{
+    private final Client client;
+    private final AfkCrabHelperPlugin plugin;
+
+    @Inject
+    AfkCrabHelperWorldsOverlay(Client client, AfkCrabHelperPlugin plugin)
+    {
+        this.client = client;
+        this.plugin = plugin;
+        setPosition(OverlayPosition.TOP_LEFT);
+        panelComponent.setPreferredSize(new Dimension(130, 0));
+    }
+
+    @Override
+    public Dimension render(Graphics2D graphics)
+    {
+        WorldCrabCache.Snapshot ranking = plugin.getWorldRanking();
+        long now = System.currentTimeMillis();
+        long nextCrabSeconds = (plugin.getNextGemstoneMillis() - now) / 1000;
+        long respawnSeconds = (plugin.getNextRespawnMillis() - now) / 1000;
+        if (ranking.size() == 0 && nextCrabSeconds <= 0 && respawnSeconds <= 0)
+        {
+            return null;
+        }
+
+        panelComponent.getChildren().add(TitleComponent.builder()
+            .text("Crab Worlds")
+            .build());
+
+        if (nextCrabSeconds > 0)
+        {
+            panelComponent.getChildren().add(LineComponent.builder()
+                .left("Next Gemstone")
+                .right(clock(nextCrabSeconds))
+                .build());
+        }
+        if (respawnSeconds > 0)
+        {
+            panelComponent.getChildren().add(LineComponent.builder()
+                .left("Next respawn")
+                .right(clock(respawnSeconds))
+                .build());
+        }
+
+        int currentWorld = client.getWorld();
+        for (int rank = 0; rank < ranking.size(); rank++)
+        {
+            if (ranking.isExpired(rank, now))
+            {
+                continue;
+            }
+
+            int world = ranking.getWorld(rank);
+            long seconds = (ranking.getDeathMillis(rank) - now) / 1000;
+            panelComponent.getChildren().add(LineComponent.builder()
+                .left(world == currentWorld ? "W" + world + " (here)" : "W" + world)
+                .right(seconds > 0 ? clock(seconds) : "Dead")
+                .rightColor(seconds > 60 ? Color.WHITE : Color.RED)
+                .build());
+        }
+        return super.render(graphics);
+    }
+
+    private static String clock(long seconds)
+    {
+        return seconds / 60 + (seconds % 60 < 10 ? ":0" : ":") + seconds % 60;
+    }
+}
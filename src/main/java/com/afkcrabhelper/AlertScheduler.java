@@ -0,0 +1,69 @@
+package com.afkcrabhelper;
+
+/**
+ * One-shot low HP alert scheduled for the tick the crab is predicted to cross the
+ * threshold. The deadline is only recomputed when new health information arrives,
+ * so each game tick is a single comparison.
+ */
+final class AlertScheduler
+{
+    static final int NEVER = Integer.MAX_VALUE;
+
+    private int lowHpTick = NEVER;
+    private boolean fired;
+
+    void reset()
+    {
+        lowHpTick = NEVER;
+        fired = false;
+    }
+
+    /**
+     * Predicts when the HP fraction reaches the threshold, given the fraction and
+     * drain per tick as of the given tick.
+     */
+    void schedule(int tick, double fraction, double drainPerTick, double threshold)
+    {
+        if (fired)
+        {
+            return;
+        }
+
+        if (fraction <= threshold)
+        {
+            lowHpTick = tick;
+        }
+        else if (drainPerTick <= 0)
+        {
+            lowHpTick = NEVER;
+        }
+        else
+        {
+            double ticks = Math.ceil((fraction - threshold) / drainPerTick);
+            lowHpTick = ticks >= NEVER - tick ? NEVER : tick + (int) ticks;
+        }
+    }
+
+    /**
+     * Whether the alert is due at this tick. True only once per reset.
+     */
+    boolean poll(int tick)
+    {
+        if (fired || tick < lowHpTick)
+        {
+            return false;
+        }
+        fired = true;
+        return true;
+    }
+
+    boolean isLowHp()
+    {
+        return fired;
+    }
+
+    int getLowHpTick()
+    {
+        return lowHpTick;
+    }
+}
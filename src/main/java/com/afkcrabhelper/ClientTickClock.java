@@ -0,0 +1,41 @@
+package com.afkcrabhelper;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import net.runelite.api.Client;
+
+/**
+ * {@link TickClock} backed by the client's tick count, interpolated within a tick
+ * from a single timestamp taken when the tick arrives.
+ */
+@Singleton
+class ClientTickClock implements TickClock
+{
+    private final Client client;
+    private volatile long tickStartNanos = System.nanoTime();
+
+    @Inject
+    ClientTickClock(Client client)
+    {
+        this.client = client;
+    }
+
+    @Override
+    public void onGameTick()
+    {
+        tickStartNanos = System.nanoTime();
+    }
+
+    @Override
+    public int getTick()
+    {
+        return client.getTickCount();
+    }
+
+    @Override
+    public int getMillisIntoTick()
+    {
+        long millis = (System.nanoTime() - tickStartNanos) / 1_000_000L;
+        return (int) Math.min(TICK_MILLIS, Math.max(0, millis));
+    }
+}
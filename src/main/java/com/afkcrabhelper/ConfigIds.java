@@ -0,0 +1,47 @@
+package com.afkcrabhelper;
+
+import java.util.Arrays;
+import java.util.List;
+import net.runelite.client.util.Text;
+
+/**
+ * Parses the comma separated id lists from the config.
+ */
+final class ConfigIds
+{
+    private ConfigIds()
+    {
+    }
+
+    /**
+     * Ids in the list between 0 and {@code maxId}. Anything else, such as a typo or
+     * an id too large to be real, is ignored.
+     */
+    static int[] parse(String csv, int maxId)
+    {
+        if (csv == null || csv.isEmpty())
+        {
+            return new int[0];
+        }
+
+        List<String> values = Text.fromCSV(csv);
+        int[] ids = new int[values.size()];
+        int count = 0;
+        for (String value : values)
+        {
+            try
+            {
+                int id = Integer.parseInt(value);
+                if (id >= 0 && id <= maxId)
+                {
+                    ids[count++] = id;
+                }
+            }
+            catch (NumberFormatException e)
+            {
+                // Ignore anything that is not an id
+            }
+        }
+        return count == ids.length ? ids : Arrays.copyOf(ids, count);
+    }
+}
@@ -0,0 +1,57 @@
+package com.afkcrabhelper;
+
+import java.util.Arrays;
+
+/**
+ * Lookup table from NPC id to {@link CrabType}, so classifying an NPC is
+ * one array read instead of a name comparison.
+ */
+final class CrabMatcher
+{
+    // NPC ids fit in 16 bits, so a typo can't size the table to gigabytes
+    private static final int MAX_NPC_ID = 0xFFFF;
+
+    private CrabType[] types = new CrabType[0];
+
+    static CrabMatcher create(String customCrabIds, String customGemstoneCrabIds)
+    {
+        CrabMatcher matcher = new CrabMatcher();
+        for (CrabType type : CrabType.values())
+        {
+            for (int npcId : type.getNpcIds())
+            {
+                matcher.put(npcId, type);
+            }
+        }
+        matcher.putAll(customCrabIds, CrabType.CUSTOM);
+        matcher.putAll(customGemstoneCrabIds, CrabType.GEMSTONE_CRAB);
+        return matcher;
+    }
+
+    CrabType classify(int npcId)
+    {
+        return npcId >= 0 && npcId < types.length ? types[npcId] : null;
+    }
+
+    private void putAll(String csv, CrabType type)
+    {
+        for (int npcId : ConfigIds.parse(csv, MAX_NPC_ID))
+        {
+            put(npcId, type);
+        }
+    }
+
+    private void put(int npcId, CrabType type)
+    {
+        if (npcId < 0)
+        {
+            return;
+        }
+
+        if (npcId >= types.length)
+        {
+            types = Arrays.copyOf(types, npcId + 1);
+        }
+        types[npcId] = type;
+    }
+}
@@ -0,0 +1,55 @@
+package com.afkcrabhelper;
+
+import java.util.BitSet;
+
+/**
+ * Map regions where crabs are trained, used to keep the plugin detached elsewhere.
+ */
+final class CrabRegions
+{
+    private static final int[] KNOWN_REGIONS = {
+        // Hosidius beach and Crabclaw Isle sand crabs
+        6710, 6965, 6966, 7222,
+        // Rellekka rock crabs
+        10553, 10554, 10809, 10810,
+        // Fossil Island ammonite crabs
+        14651, 14652, 14907, 14908,
+    };
+
+    // Region ids are 16 bits, anything larger would only grow the set
+    private static final int MAX_REGION_ID = 0xFFFF;
+
+    private final BitSet regions = new BitSet();
+
+    static CrabRegions create(String customRegionIds)
+    {
+        CrabRegions crabRegions = new CrabRegions();
+        for (int region : KNOWN_REGIONS)
+        {
+            crabRegions.regions.set(region);
+        }
+
+        for (int region : ConfigIds.parse(customRegionIds, MAX_REGION_ID))
+        {
+            crabRegions.regions.set(region);
+        }
+        return crabRegions;
+    }
+
+    boolean containsAny(int[] mapRegions)
+    {
+        if (mapRegions == null)
+        {
+            return false;
+        }
+
+        for (int region : mapRegions)
+        {
+            if (region >= 0 && regions.get(region))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+}
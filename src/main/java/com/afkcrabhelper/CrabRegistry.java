@@ -0,0 +1,307 @@
+package com.afkcrabhelper;
+
+import java.util.Arrays;
+import net.runelite.api.NPC;
+
+/**
+ * Crabs currently in the scene, keyed by NPC index and maintained from
+ * NpcSpawned/NpcDespawned, so liveness checks are a single array read.
+ *
+ * Per-crab state is kept in parallel arrays indexed the same way and updated
+ * incrementally from spawn, despawn and hitsplat events: spawn tick, last hit,
+ * last health bar and, for crabs with a known max HP, counted HP. Switching
+ * targets reads a crab's state back instead of starting from scratch.
+ *
+ * Respawns are predicted from what has been seen. The server keeps a sand or rock
+ * crab's index when it respawns, so the delay between a crab dying and its index
+ * spawning again is learned per index, which gives the window in which a killed
+ * crab is back to aggro. The Gemstone Crab moves to another spot when it dies, so
+ * its delay is learned from one Gemstone Crab dying to the next one spawning.
+ */
+final class CrabRegistry
+{
+    private static final int INITIAL_CAPACITY = 2048;
+
+    static final int UNKNOWN = -1;
+
+    private NPC[] crabs = new NPC[INITIAL_CAPACITY];
+    private CrabType[] types = new CrabType[INITIAL_CAPACITY];
+    private int[] spawnTicks = newTable(INITIAL_CAPACITY);
+    private int[] lastHitTicks = newTable(INITIAL_CAPACITY);
+    private int[] healthRatios = newTable(INITIAL_CAPACITY);
+    private int[] healthScales = newTable(INITIAL_CAPACITY);
+    private int[] hitpoints = newTable(INITIAL_CAPACITY);
+    private int[] deathTicks = newTable(INITIAL_CAPACITY);
+    private int[] respawnDelays = newTable(INITIAL_CAPACITY);
+    private int size;
+
+    // Indices of sand and rock crabs that died and have not spawned again
+    private int[] deadIndices = new int[16];
+    private int deadCount;
+
+    private int gemstoneDeathTick = UNKNOWN;
+    private int gemstoneRespawnDelay = UNKNOWN;
+
+    void add(NPC npc, CrabType type, int tick)
+    {
+        int index = npc.getIndex();
+        if (index < 0)
+        {
+            return;
+        }
+
+        if (index >= crabs.length)
+        {
+            grow(Math.max(crabs.length * 2, index + 1));
+        }
+
+        if (crabs[index] == npc)
+        {
+            types[index] = type;
+            return;
+        }
+
+        if (crabs[index] == null)
+        {
+            size++;
+        }
+        crabs[index] = npc;
+        types[index] = type;
+        spawnTicks[index] = tick;
+        lastHitTicks[index] = UNKNOWN;
+        healthRatios[index] = npc.getHealthRatio();
+        healthScales[index] = npc.getHealthScale();
+        hitpoints[index] = UNKNOWN;
+
+        if (deathTicks[index] != UNKNOWN)
+        {
+            respawnDelays[index] = tick - deathTicks[index];
+            deathTicks[index] = UNKNOWN;
+            removeDead(index);
+        }
+        if (type == CrabType.GEMSTONE_CRAB && gemstoneDeathTick != UNKNOWN)
+        {
+            gemstoneRespawnDelay = tick - gemstoneDeathTick;
+            gemstoneDeathTick = UNKNOWN;
+        }
+    }
+
+    void remove(NPC npc, int tick)
+    {
+        int index = npc.getIndex();
+        // The slot may already hold a newer NPC that reused the index
+        if (index >= 0 && index < crabs.length && crabs[index] == npc)
+        {
+            // Crabs also despawn when the player walks away, only deaths predict a respawn
+            if (npc.isDead() || healthRatios[index] == 0)
+            {
+                if (types[index] == CrabType.GEMSTONE_CRAB)
+                {
+                    gemstoneDeathTick = tick;
+                }
+                else if (deathTicks[index] == UNKNOWN)
+                {
+                    deathTicks[index] = tick;
+                    addDead(index);
+                }
+            }
+            crabs[index] = null;
+            types[index] = null;
+            size--;
+        }
+    }
+
+    /**
+     * Records a hitsplat, along with the health bar the client sends with it.
+     */
+    void onHit(NPC npc, int damage, int tick)
+    {
+        if (!contains(npc))
+        {
+            return;
+        }
+
+        int index = npc.getIndex();
+        lastHitTicks[index] = tick;
+        healthRatios[index] = npc.getHealthRatio();
+        healthScales[index] = npc.getHealthScale();
+        if (hitpoints[index] > 1 && damage > 0)
+        {
+            hitpoints[index] = Math.max(1, hitpoints[index] - damage);
+        }
+    }
+
+    boolean contains(NPC npc)
+    {
+        int index = npc.getIndex();
+        return index >= 0 && index < crabs.length && crabs[index] == npc;
+    }
+
+    CrabType getType(NPC npc)
+    {
+        return contains(npc) ? types[npc.getIndex()] : null;
+    }
+
+    /**
+     * Tick the crab spawned, or was first seen if it was already in the scene.
+     */
+    int getSpawnTick(NPC npc)
+    {
+        return contains(npc) ? spawnTicks[npc.getIndex()] : UNKNOWN;
+    }
+
+    /**
+     * Tick the crab was last hit, or -1 if it has not been since it spawned.
+     */
+    int getLastHitTick(NPC npc)
+    {
+        return contains(npc) ? lastHitTicks[npc.getIndex()] : UNKNOWN;
+    }
+
+    /**
+     * Health bar value last seen for the crab, or -1 if none has been seen.
+     */
+    int getHealthRatio(NPC npc)
+    {
+        return contains(npc) ? healthRatios[npc.getIndex()] : UNKNOWN;
+    }
+
+    int getHealthScale(NPC npc)
+    {
+        return contains(npc) ? healthScales[npc.getIndex()] : UNKNOWN;
+    }
+
+    /**
+     * Counted HP left over from when the crab was last tracked, or -1 if unknown.
+     */
+    int getHitpoints(NPC npc)
+    {
+        return contains(npc) ? hitpoints[npc.getIndex()] : UNKNOWN;
+    }
+
+    void setHitpoints(NPC npc, int hp)
+    {
+        if (contains(npc))
+        {
+            hitpoints[npc.getIndex()] = hp;
+        }
+    }
+
+    /**
+     * Predicted tick a sand or rock crab that died at this index spawns again, or -1
+     * if it is not dead or no respawn has been seen at the index yet.
+     */
+    int getRespawnTick(int index)
+    {
+        if (index < 0 || index >= crabs.length || deathTicks[index] == UNKNOWN || respawnDelays[index] == UNKNOWN)
+        {
+            return UNKNOWN;
+        }
+        return deathTicks[index] + respawnDelays[index];
+    }
+
+    /**
+     * Earliest predicted respawn at or after the given tick of the sand and rock
+     * crabs that died, or -1 if none is known. A crab more than its own delay
+     * overdue is taken to have spawned out of sight and is forgotten.
+     */
+    int getNextRespawnTick(int tick)
+    {
+        int next = UNKNOWN;
+        for (int i = 0; i < deadCount; )
+        {
+            int index = deadIndices[i];
+            int respawnTick = getRespawnTick(index);
+            if (respawnTick != UNKNOWN && tick - respawnTick > respawnDelays[index])
+            {
+                deathTicks[index] = UNKNOWN;
+                deadIndices[i] = deadIndices[--deadCount];
+                continue;
+            }
+            if (respawnTick >= tick && (next == UNKNOWN || respawnTick < next))
+            {
+                next = respawnTick;
+            }
+            i++;
+        }
+        return next;
+    }
+
+    /**
+     * Predicted tick the next Gemstone Crab spawns, or -1 if unknown.
+     */
+    int getGemstoneRespawnTick()
+    {
+        if (gemstoneDeathTick == UNKNOWN || gemstoneRespawnDelay == UNKNOWN)
+        {
+            return UNKNOWN;
+        }
+        return gemstoneDeathTick + gemstoneRespawnDelay;
+    }
+
+    void clear()
+    {
+        Arrays.fill(crabs, null);
+        Arrays.fill(types, null);
+        Arrays.fill(deathTicks, UNKNOWN);
+        Arrays.fill(respawnDelays, UNKNOWN);
+        deadCount = 0;
+        gemstoneDeathTick = UNKNOWN;
+        gemstoneRespawnDelay = UNKNOWN;
+        size = 0;
+    }
+
+    int size()
+    {
+        return size;
+    }
+
+    private void grow(int capacity)
+    {
+        crabs = Arrays.copyOf(crabs, capacity);
+        types = Arrays.copyOf(types, capacity);
+        spawnTicks = grow(spawnTicks, capacity);
+        lastHitTicks = grow(lastHitTicks, capacity);
+        healthRatios = grow(healthRatios, capacity);
+        healthScales = grow(healthScales, capacity);
+        hitpoints = grow(hitpoints, capacity);
+        deathTicks = grow(deathTicks, capacity);
+        respawnDelays = grow(respawnDelays, capacity);
+    }
+
+    private void addDead(int index)
+    {
+        if (deadCount == deadIndices.length)
+        {
+            deadIndices = Arrays.copyOf(deadIndices, deadCount * 2);
+        }
+        deadIndices[deadCount++] = index;
+    }
+
+    private void removeDead(int index)
+    {
+        for (int i = 0; i < deadCount; i++)
+        {
+            if (deadIndices[i] == index)
+            {
+                deadIndices[i] = deadIndices[--deadCount];
+                return;
+            }
+        }
+    }
+
+    private static int[] grow(int[] table, int capacity)
+    {
+        int length = table.length;
+        int[] grown = Arrays.copyOf(table, capacity);
+        Arrays.fill(grown, length, capacity, UNKNOWN);
+        return grown;
+    }
+
+    private static int[] newTable(int capacity)
+    {
+        int[] table = new int[capacity];
+        Arrays.fill(table, UNKNOWN);
+        return table;
+    }
+}
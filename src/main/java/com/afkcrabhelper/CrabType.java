@@ -0,0 +1,28 @@
+package com.afkcrabhelper;
+
+import net.runelite.api.gameval.NpcID;
+
+/**
+ * Supported crab variants and the NPC ids of their active and burrowed forms.
+ */
+enum CrabType
+{
+    SAND_CRAB(NpcID.SANDCRAB, NpcID.SANDCRAB_DISGUISED, NpcID.SANDCRAB_CRABCLAW, NpcID.SANDCRAB_CRABCLAW_DISGUISED),
+    ROCK_CRAB(NpcID.ROCKCRAB, NpcID.ROCKCRAB_DISGUISED, NpcID.ROCKCRAB2, NpcID.ROCKCRAB2_DISGUISED),
+    AMMONITE_CRAB(NpcID.FOSSIL_AMMONITE_CRAB, NpcID.FOSSIL_AMMONITE_CRAB_DISGUISED),
+    GEMSTONE_CRAB(NpcID.GEMSTONE_CRAB, NpcID.GEMSTONE_CRAB_SHELL),
+    // Ids added through the config
+    CUSTOM();
+
+    private final int[] npcIds;
+
+    CrabType(int... npcIds)
+    {
+        this.npcIds = npcIds;
+    }
+
+    int[] getNpcIds()
+    {
+        return npcIds;
+    }
+}
@@ -0,0 +1,39 @@
+package com.afkcrabhelper;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+
+/**
+ * Fills the canvas with the overlay color.
+ *
+ * An opaque color is a plain fill, which Java2D draws without blending, and a
+ * fully transparent one draws nothing. Anything else is a translucent fill.
+ * Overlays are drawn into the client's software buffer, so there is no faster
+ * way to blend it.
+ */
+final class DimmingLayer
+{
+    enum Path
+    {
+        NONE,
+        OPAQUE_FILL,
+        TRANSLUCENT_FILL
+    }
+
+    private DimmingLayer()
+    {
+    }
+
+    static Path paint(Graphics2D graphics, Color color, int width, int height)
+    {
+        int alpha = color.getAlpha();
+        if (alpha == 0)
+        {
+            return Path.NONE;
+        }
+
+        graphics.setColor(color);
+        graphics.fillRect(0, 0, width, height);
+        return alpha == 255 ? Path.OPAQUE_FILL : Path.TRANSLUCENT_FILL;
+    }
+}
@@ -0,0 +1,59 @@
+package com.afkcrabhelper;
+
+/**
+ * Immutable snapshot of what the overlay should show, computed once per game tick
+ * on the client thread and read by the overlay every frame.
+ */
+final class DisplayState
+{
+    static final DisplayState HIDDEN = new DisplayState(false, null, null, false);
+
+    private final boolean visible;
+    private final String text;
+    private final String statsText;
+    private final boolean flash;
+
+    DisplayState(boolean visible, String text, String statsText, boolean flash)
+    {
+        this.visible = visible;
+        this.text = text;
+        this.statsText = statsText;
+        this.flash = flash;
+    }
+
+    boolean isVisible()
+    {
+        return visible;
+    }
+
+    String getText()
+    {
+        return text;
+    }
+
+    /**
+     * Session statistics line shown under the text, or null.
+     */
+    String getStatsText()
+    {
+        return statsText;
+    }
+
+    boolean isFlash()
+    {
+        return flash;
+    }
+
+    boolean sameAs(boolean visible, String text, String statsText, boolean flash)
+    {
+        return this.visible == visible
+            && this.flash == flash
+            && equal(this.text, text)
+            && equal(this.statsText, statsText);
+    }
+
+    private static boolean equal(String a, String b)
+    {
+        return a == null ? b == null : a.equals(b);
+    }
+}
@@ -0,0 +1,133 @@
+package com.afkcrabhelper;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.client.config.ConfigManager;
+
+/**
+ * Drain rates learned from earlier crabs, so the countdown has a good prior from
+ * the first tick of a new crab.
+ *
+ * Rates are kept per crab type and a coarse bucket of what decides the rate. Every
+ * player around damages the Gemstone Crab, so for it that is the number of players.
+ * Other crabs are fought alone, so for them it is the player's combat level.
+ *
+ * Each key is one rate and a sample count, stored as a single config value so it
+ * survives restarts. Values are only read from the config the first time a key is
+ * used.
+ */
+@Slf4j
+@Singleton
+class DrainCalibration
+{
+    static final String GROUP = "afkcrabhelpercalibration";
+
+    // Upper bounds of the buckets, the rest is 20 or more players or over level 110.
+    // Both kinds come in the same number of buckets
+    private static final int[] CROWD_LIMITS = {1, 4, 9, 19};
+    private static final int[] COMBAT_LEVEL_LIMITS = {40, 70, 90, 110};
+    static final int BUCKETS = CROWD_LIMITS.length + 1;
+
+    // Later crabs keep at least this weight so the rate follows game updates
+    private static final double MIN_WEIGHT = 0.2;
+
+    private static final int TYPES = CrabType.values().length;
+
+    private final ConfigManager configManager;
+    private final double[] rates = new double[TYPES * BUCKETS];
+    private final int[] counts = new int[TYPES * BUCKETS];
+    private final boolean[] loaded = new boolean[TYPES * BUCKETS];
+
+    @Inject
+    DrainCalibration(ConfigManager configManager)
+    {
+        this.configManager = configManager;
+    }
+
+    /**
+     * Bucket for a crab of the given type, from the number of players in the scene,
+     * the local player included, or the local player's combat level.
+     */
+    static int bucket(CrabType type, int players, int combatLevel)
+    {
+        return type == CrabType.GEMSTONE_CRAB
+            ? bucket(CROWD_LIMITS, players)
+            : bucket(COMBAT_LEVEL_LIMITS, combatLevel);
+    }
+
+    private static int bucket(int[] limits, int value)
+    {
+        for (int i = 0; i < limits.length; i++)
+        {
+            if (value <= limits[i])
+            {
+                return i;
+            }
+        }
+        return limits.length;
+    }
+
+    /**
+     * Learned drain in HP fraction per tick, or 0 if nothing was learned yet.
+     */
+    double getDrainPerTick(CrabType type, int bucket)
+    {
+        int slot = load(type, bucket);
+        return counts[slot] > 0 ? rates[slot] : 0;
+    }
+
+    void learn(CrabType type, int bucket, double drainPerTick)
+    {
+        if (!(drainPerTick > 0) || Double.isInfinite(drainPerTick))
+        {
+            return;
+        }
+
+        int slot = load(type, bucket);
+        double weight = Math.max(1.0 / (counts[slot] + 1), MIN_WEIGHT);
+        rates[slot] += weight * (drainPerTick - rates[slot]);
+        counts[slot]++;
+        configManager.setConfiguration(GROUP, key(type, bucket), rates[slot] + ":" + counts[slot]);
+        log.debug("Learned {} drain {} per tick in bucket {} from {} crabs",
+            type, rates[slot], bucket, counts[slot]);
+    }
+
+    private int load(CrabType type, int bucket)
+    {
+        int slot = type.ordinal() * BUCKETS + bucket;
+        if (loaded[slot])
+        {
+            return slot;
+        }
+
+        loaded[slot] = true;
+        rates[slot] = 0;
+        counts[slot] = 0;
+        String value = configManager.getConfiguration(GROUP, key(type, bucket));
+        if (value != null)
+        {
+            int colon = value.indexOf(':');
+            try
+            {
+                double rate = Double.parseDouble(value.substring(0, colon));
+                int count = Integer.parseInt(value.substring(colon + 1));
+                if (rate > 0 && count > 0)
+                {
+                    rates[slot] = rate;
+                    counts[slot] = count;
+                }
+            }
+            catch (NumberFormatException | StringIndexOutOfBoundsException e)
+            {
+                log.debug("Ignoring bad drain calibration {}", value);
+            }
+        }
+        return slot;
+    }
+
+    private static String key(CrabType type, int bucket)
+    {
+        return "drain." + type.name() + "." + bucket;
+    }
+}
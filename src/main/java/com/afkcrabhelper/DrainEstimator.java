@@ -0,0 +1,193 @@
+package com.afkcrabhelper;
+
+/**
+ * Streaming least-squares fit of a crab's HP fraction against game ticks.
+ *
+ * Samples are kept in a fixed-size ring buffer together with running sums, so adding
+ * a sample and reading the estimate are O(1) with no allocation. Until two samples
+ * exist the estimate falls back to a prior drain rate, learned from earlier crabs
+ * or else 10% of max HP per minute.
+ */
+final class DrainEstimator
+{
+    static final int WINDOW = 16;
+
+    // 10% of max HP per minute, one minute being 100 ticks
+    static final double DEFAULT_DRAIN_PER_TICK = 0.001;
+
+    private final int[] ticks = new int[WINDOW];
+    private final double[] fractions = new double[WINDOW];
+    private int head;
+    private int count;
+    private int baseTick;
+
+    private double sumT;
+    private double sumH;
+    private double sumTT;
+    private double sumTH;
+    private double sumHH;
+
+    // Bounds of the last observed health bar segment, used to clamp extrapolation
+    private double segmentLow;
+    private double segmentHigh;
+
+    private double priorDrainPerTick = DEFAULT_DRAIN_PER_TICK;
+
+    void reset()
+    {
+        head = 0;
+        count = 0;
+        sumT = sumH = sumTT = sumTH = sumHH = 0;
+        segmentLow = 0;
+        segmentHigh = 1;
+    }
+
+    /**
+     * Drain rate to assume until the samples give a fit. Kept across resets.
+     */
+    void setPriorDrainPerTick(double priorDrainPerTick)
+    {
+        this.priorDrainPerTick = priorDrainPerTick > 0 ? priorDrainPerTick : DEFAULT_DRAIN_PER_TICK;
+    }
+
+    /**
+     * Whether the samples show a drain, rather than the prior being used.
+     */
+    boolean hasFit()
+    {
+        return getSlope() < 0;
+    }
+
+    boolean isEmpty()
+    {
+        return count == 0;
+    }
+
+    int getSampleCount()
+    {
+        return count;
+    }
+
+    /**
+     * Records a new health bar value. The first sample is assumed to sit in the middle
+     * of its segment; later samples are taken at a segment drop, so HP has just crossed
+     * below the top of the new segment.
+     */
+    void addSample(int tick, int healthRatio, int healthScale)
+    {
+        double high = (double) healthRatio / healthScale;
+        double fraction = count == 0 ? (healthRatio - 0.5) / healthScale : high;
+        segmentLow = Math.max(0, (healthRatio - 1.0) / healthScale);
+        segmentHigh = high;
+
+        if (count == 0)
+        {
+            baseTick = tick;
+        }
+        else if (count == WINDOW)
+        {
+            // The buffer is full, so head points at the oldest sample
+            double t = ticks[head] - baseTick;
+            double h = fractions[head];
+            sumT -= t;
+            sumH -= h;
+            sumTT -= t * t;
+            sumTH -= t * h;
+            sumHH -= h * h;
+            count--;
+        }
+
+        double t = tick - baseTick;
+        ticks[head] = tick;
+        fractions[head] = fraction;
+        head = (head + 1) % WINDOW;
+        count++;
+
+        sumT += t;
+        sumH += fraction;
+        sumTT += t * t;
+        sumTH += t * fraction;
+        sumHH += fraction * fraction;
+    }
+
+    /**
+     * Fitted drain in HP fraction per tick, always positive.
+     */
+    double getDrainPerTick()
+    {
+        double slope = getSlope();
+        return slope < 0 ? -slope : priorDrainPerTick;
+    }
+
+    /**
+     * Estimated HP fraction at the given tick, clamped to the last observed segment.
+     */
+    double estimateFraction(int tick)
+    {
+        if (count == 0)
+        {
+            return 0;
+        }
+
+        double fraction;
+        double slope = getSlope();
+        if (slope < 0)
+        {
+            // Evaluate the fitted line, which passes through the mean sample
+            fraction = sumH / count + slope * (tick - baseTick - sumT / count);
+        }
+        else
+        {
+            int last = (head - 1 + WINDOW) % WINDOW;
+            fraction = fractions[last] - priorDrainPerTick * (tick - ticks[last]);
+        }
+        return Math.min(segmentHigh, Math.max(segmentLow, fraction));
+    }
+
+    /**
+     * Estimated ticks until the crab reaches zero HP.
+     */
+    double getEtaTicks(int tick)
+    {
+        return estimateFraction(tick) / getDrainPerTick();
+    }
+
+    /**
+     * Half width of a roughly 95% band around the fitted drain rate, relative to it,
+     * from the standard error of the slope. An ETA has about the same relative band.
+     * Zero until there are enough samples, and at most 1.
+     */
+    double getRelativeDrainError()
+    {
+        double slope = getSlope();
+        if (count < 3 || slope >= 0)
+        {
+            return 0;
+        }
+
+        double sxx = sumTT - sumT * sumT / count;
+        double sxy = sumTH - sumT * sumH / count;
+        double syy = sumHH - sumH * sumH / count;
+        double residual = Math.max(0, syy - sxy * sxy / sxx) / (count - 2);
+        double slopeError = Math.sqrt(residual / sxx);
+        return Math.min(1, 2 * slopeError / -slope);
+    }
+
+    /**
+     * Least-squares slope of the samples, or zero when it cannot be fitted.
+     */
+    private double getSlope()
+    {
+        if (count < 2)
+        {
+            return 0;
+        }
+
+        double sxx = sumTT - sumT * sumT / count;
+        if (sxx <= 0)
+        {
+            return 0;
+        }
+        return (sumTH - sumT * sumH / count) / sxx;
+    }
+}
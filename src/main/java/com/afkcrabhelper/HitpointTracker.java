@@ -0,0 +1,121 @@
+package com.afkcrabhelper;
+
+/**
+ * Exact HP of a crab with known max HP, kept by subtracting hitsplat damage.
+ *
+ * Each hitsplat is O(1). Whenever a new health bar value arrives the tracked HP is
+ * clamped into the range that value allows, so missed or misread hitsplats cannot
+ * drift further than one bar segment.
+ */
+final class HitpointTracker
+{
+    private int maxHitpoints;
+    private int hitpoints = -1;
+    // Lowest HP the last health bar value allows
+    private int minHitpoints;
+    // Tick the tracked HP last changed
+    private int changedTick;
+
+    /**
+     * Starts tracking from HP counted earlier, re-synced to the health bar if one is showing.
+     */
+    void resume(int maxHitpoints, int hitpoints, int healthRatio, int healthScale, int tick)
+    {
+        this.maxHitpoints = maxHitpoints;
+        this.hitpoints = Math.min(maxHitpoints, hitpoints);
+        minHitpoints = 1;
+        changedTick = tick;
+        if (healthRatio >= 0)
+        {
+            onHealthBar(healthRatio, healthScale, tick);
+        }
+    }
+
+    void clear()
+    {
+        maxHitpoints = 0;
+        hitpoints = -1;
+    }
+
+    boolean isTracking()
+    {
+        return hitpoints >= 0;
+    }
+
+    void onDamage(int amount, int tick)
+    {
+        if (hitpoints > 1 && amount > 0)
+        {
+            // Only the health bar can say the crab is dead, in case max HP is off
+            hitpoints = Math.max(1, hitpoints - amount);
+            changedTick = tick;
+        }
+    }
+
+    /**
+     * Re-syncs to a health bar value. The server sends
+     * {@code 1 + (scale - 1) * hp / max} for a living NPC, so this works out the HP
+     * range behind the value the same way the opponent info overlay does.
+     */
+    void onHealthBar(int healthRatio, int healthScale, int tick)
+    {
+        if (!isTracking() || healthRatio < 0 || healthScale <= 0)
+        {
+            return;
+        }
+
+        int low = 0;
+        int high = 0;
+        if (healthRatio > 0)
+        {
+            low = 1;
+            high = maxHitpoints;
+            if (healthScale > 1)
+            {
+                if (healthRatio > 1)
+                {
+                    low = (maxHitpoints * (healthRatio - 1) + healthScale - 2) / (healthScale - 1);
+                }
+                high = Math.min(maxHitpoints, (maxHitpoints * healthRatio - 1) / (healthScale - 1));
+            }
+        }
+
+        minHitpoints = low;
+        int synced = Math.min(high, Math.max(low, hitpoints));
+        if (synced != hitpoints)
+        {
+            hitpoints = synced;
+            changedTick = tick;
+        }
+    }
+
+    int getHitpoints()
+    {
+        return hitpoints;
+    }
+
+    int getMaxHitpoints()
+    {
+        return maxHitpoints;
+    }
+
+    double getFraction()
+    {
+        return maxHitpoints > 0 ? (double) Math.max(0, hitpoints) / maxHitpoints : 0;
+    }
+
+    /**
+     * HP fraction at the given tick, extrapolating from the last change at the given
+     * drain rate but never below what the last health bar value allows.
+     */
+    double estimateFraction(int tick, double drainPerTick)
+    {
+        if (maxHitpoints <= 0)
+        {
+            return 0;
+        }
+
+        double estimate = hitpoints - drainPerTick * maxHitpoints * Math.max(0, tick - changedTick);
+        return Math.max(minHitpoints, Math.min(hitpoints, estimate)) / maxHitpoints;
+    }
+}
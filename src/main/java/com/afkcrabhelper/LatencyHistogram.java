@@ -0,0 +1,132 @@
+package com.afkcrabhelper;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free histogram of non-negative values with fixed log-linear buckets.
+ *
+ * Each power of two is split into four buckets, so a reported percentile is within
+ * 25% of the true value. Recording is a couple of atomic adds with no allocation;
+ * readers take a {@link Snapshot} and may race with writers, which at worst makes a
+ * snapshot miss the samples recorded while it was being taken.
+ */
+final class LatencyHistogram
+{
+    private static final int SUB_BUCKET_BITS = 2;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = 64 << SUB_BUCKET_BITS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong max = new AtomicLong();
+
+    void record(long value)
+    {
+        if (value < 0)
+        {
+            return;
+        }
+
+        counts.incrementAndGet(bucket(value));
+        long current = max.get();
+        while (value > current && !max.compareAndSet(current, value))
+        {
+            current = max.get();
+        }
+    }
+
+    void reset()
+    {
+        for (int i = 0; i < BUCKETS; i++)
+        {
+            counts.set(i, 0);
+        }
+        max.set(0);
+    }
+
+    Snapshot snapshot()
+    {
+        long[] copy = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++)
+        {
+            copy[i] = counts.get(i);
+            count += copy[i];
+        }
+        return new Snapshot(copy, count, max.get());
+    }
+
+    static int bucket(long value)
+    {
+        if (value < SUB_BUCKETS)
+        {
+            return (int) value;
+        }
+
+        int msb = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (msb - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return ((msb - SUB_BUCKET_BITS + 1) << SUB_BUCKET_BITS) + sub;
+    }
+
+    /**
+     * Largest value that falls into the bucket.
+     */
+    static long bucketLimit(int bucket)
+    {
+        if (bucket < SUB_BUCKETS)
+        {
+            return bucket;
+        }
+
+        int shift = (bucket >>> SUB_BUCKET_BITS) - 1;
+        long low = (long) (SUB_BUCKETS | (bucket & (SUB_BUCKETS - 1))) << shift;
+        return low + (1L << shift) - 1;
+    }
+
+    static final class Snapshot
+    {
+        private final long[] counts;
+        private final long count;
+        private final long max;
+
+        private Snapshot(long[] counts, long count, long max)
+        {
+            this.counts = counts;
+            this.count = count;
+            this.max = max;
+        }
+
+        long getCount()
+        {
+            return count;
+        }
+
+        long getMax()
+        {
+            return max;
+        }
+
+        /**
+         * Upper bound of the bucket holding the given quantile, never above the max.
+         */
+        long getPercentile(double quantile)
+        {
+            if (count == 0)
+            {
+                return 0;
+            }
+
+            long rank = Math.max(1, (long) Math.ceil(quantile * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++)
+            {
+                seen += counts[i];
+                if (seen >= rank)
+                {
+                    return Math.min(max, bucketLimit(i));
+                }
+            }
+            return max;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.afkcrabhelper;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Period;
+import jdk.jfr.StackTrace;
+
+/**
+ * Periodic JFR summary of {@link PluginMetrics}, one event per metric. Only
+ * referenced once metrics are enabled, so runtimes without JFR never load it.
+ */
+@Name("com.afkcrabhelper.Metrics")
+@Label("AFK Crab Helper Metrics")
+@Description("Hot path timings and frame garbage of the AFK Crab Helper plugin")
+@Category({"RuneLite", "AFK Crab Helper"})
+@Period("1 s")
+@StackTrace(false)
+class MetricsEvent extends Event
+{
+    private static Runnable hook;
+
+    @Label("Metric")
+    String metric;
+
+    @Label("Samples")
+    long count;
+
+    @Label("p50")
+    long p50;
+
+    @Label("p99")
+    long p99;
+
+    @Label("Max")
+    long max;
+
+    @Label("Unit")
+    String unit;
+
+    static synchronized void register(PluginMetrics metrics)
+    {
+        hook = () -> emit(metrics);
+        FlightRecorder.addPeriodicEvent(MetricsEvent.class, hook);
+    }
+
+    static synchronized void unregister()
+    {
+        if (hook != null)
+        {
+            FlightRecorder.removePeriodicEvent(hook);
+            hook = null;
+        }
+    }
+
+    private static void emit(PluginMetrics metrics)
+    {
+        for (PluginMetrics.Metric metric : PluginMetrics.getMetrics())
+        {
+            LatencyHistogram.Snapshot snapshot = metrics.snapshot(metric);
+            MetricsEvent event = new MetricsEvent();
+            event.metric = metric.getName();
+            event.unit = metric.isTime() ? "ns" : "B";
+            event.count = snapshot.getCount();
+            event.p50 = snapshot.getPercentile(0.5);
+            event.p99 = snapshot.getPercentile(0.99);
+            event.max = snapshot.getMax();
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.afkcrabhelper;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import javax.inject.Singleton;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Timings of the plugin's hot paths and the garbage each overlay frame makes, for
+ * telling whether the plugin is behind an FPS drop.
+ *
+ * Disabled by default, in which case every call is a single volatile read. When
+ * enabled the client and render threads record into lock-free histograms without
+ * allocating, and the debug overlay and JFR read snapshots of them.
+ */
+@Slf4j
+@Singleton
+class PluginMetrics
+{
+    enum Metric
+    {
+        GAME_TICK("Game tick", "us"),
+        DISPLAY_TEXT("Display text", "us"),
+        RENDER("Render", "us"),
+        FRAME_ALLOCATION("Frame garbage", "B");
+
+        private final String name;
+        private final String unit;
+
+        Metric(String name, String unit)
+        {
+            this.name = name;
+            this.unit = unit;
+        }
+
+        String getName()
+        {
+            return name;
+        }
+
+        String getUnit()
+        {
+            return unit;
+        }
+
+        boolean isTime()
+        {
+            return this != FRAME_ALLOCATION;
+        }
+    }
+
+    private static final Metric[] METRICS = Metric.values();
+
+    private final LatencyHistogram[] histograms = new LatencyHistogram[METRICS.length];
+    private final com.sun.management.ThreadMXBean allocationBean;
+    private volatile boolean enabled;
+    private boolean jfrRegistered;
+
+    PluginMetrics()
+    {
+        for (int i = 0; i < histograms.length; i++)
+        {
+            histograms[i] = new LatencyHistogram();
+        }
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        allocationBean = threads instanceof com.sun.management.ThreadMXBean
+            && ((com.sun.management.ThreadMXBean) threads).isThreadAllocatedMemorySupported()
+            ? (com.sun.management.ThreadMXBean) threads : null;
+    }
+
+    boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    void setEnabled(boolean enabled)
+    {
+        if (this.enabled == enabled)
+        {
+            return;
+        }
+
+        if (enabled)
+        {
+            for (LatencyHistogram histogram : histograms)
+            {
+                histogram.reset();
+            }
+        }
+        this.enabled = enabled;
+
+        // JFR is optional, e.g. missing from older Java 8 runtimes
+        try
+        {
+            if (enabled && !jfrRegistered)
+            {
+                MetricsEvent.register(this);
+                jfrRegistered = true;
+            }
+            else if (!enabled && jfrRegistered)
+            {
+                MetricsEvent.unregister();
+                jfrRegistered = false;
+            }
+        }
+        catch (LinkageError | SecurityException e)
+        {
+            log.debug("JFR events unavailable", e);
+        }
+    }
+
+    /**
+     * Start time to pass to {@link #end}, or 0 when disabled.
+     */
+    long begin()
+    {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    void end(Metric metric, long start)
+    {
+        if (start != 0 && enabled)
+        {
+            histograms[metric.ordinal()].record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Bytes allocated so far by the current thread, to pass to {@link #endAllocation},
+     * or -1 when disabled or unsupported.
+     */
+    long beginAllocation()
+    {
+        if (!enabled || allocationBean == null)
+        {
+            return -1;
+        }
+        return allocationBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    void endAllocation(long start)
+    {
+        if (start >= 0 && enabled)
+        {
+            long allocated = allocationBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+            histograms[Metric.FRAME_ALLOCATION.ordinal()].record(allocated - start);
+        }
+    }
+
+    LatencyHistogram.Snapshot snapshot(Metric metric)
+    {
+        return histograms[metric.ordinal()].snapshot();
+    }
+
+    static Metric[] getMetrics()
+    {
+        return METRICS;
+    }
+}
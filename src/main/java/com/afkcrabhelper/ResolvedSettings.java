@@ -0,0 +1,163 @@
+package com.afkcrabhelper;
+
+import java.awt.Color;
+import java.awt.Font;
+
+/**
+ * Config values resolved into the objects the tick and render paths need.
+ * Built on startUp and rebuilt only when the afkcrabhelper config group changes,
+ * so the hot paths never go through the config proxy.
+ */
+final class ResolvedSettings
+{
+    private final AfkCrabHelperConfig.DisplayMode displayMode;
+    private final boolean showSessionStats;
+    private final boolean showCrabWorlds;
+    private final Color overlayColor;
+    private final boolean hideWorld;
+    private final Font font;
+    private final Font statsFont;
+    private final Color fontColor;
+    private final boolean flashEnabled;
+    private final int flashThreshold;
+    private final Color flashColor;
+    private final boolean lowHpNotification;
+    private final boolean lowHpSound;
+    private final int activationDelayTicks;
+    private final int hideDelayTicks;
+    private final boolean recordSessions;
+    private final boolean shareCrabState;
+    private final CrabMatcher crabMatcher;
+    private final CrabRegions crabRegions;
+
+    private ResolvedSettings(AfkCrabHelperConfig config)
+    {
+        displayMode = config.displayMode();
+        showSessionStats = config.showSessionStats();
+        showCrabWorlds = config.showCrabWorlds();
+
+        // Create overlay color with configured opacity
+        Color color = config.overlayColor();
+        overlayColor = new Color(color.getRed(), color.getGreen(), color.getBlue(), config.overlayOpacity());
+        // Nothing behind a fully opaque overlay can be seen
+        hideWorld = config.powerSaver() && config.overlayOpacity() == 255;
+
+        font = new Font(config.fontFamily().getJavaFontName(), config.fontStyle().getJavaFontStyle(), config.fontSize());
+        statsFont = font.deriveFont(font.getSize2D() * 2 / 3);
+        fontColor = config.fontColor();
+
+        flashEnabled = config.enableFlash();
+        flashThreshold = config.flashThreshold();
+        flashColor = config.flashColor();
+        lowHpNotification = config.lowHpNotification();
+        lowHpSound = config.lowHpSound();
+
+        activationDelayTicks = TickClock.secondsToTicks(config.activationDelay());
+        hideDelayTicks = TickClock.secondsToTicks(config.hideDelay());
+        recordSessions = config.recordSessions();
+        shareCrabState = config.shareCrabState();
+
+        crabMatcher = CrabMatcher.create(config.customCrabIds(), config.customGemstoneCrabIds());
+        crabRegions = CrabRegions.create(config.customRegionIds());
+    }
+
+    static ResolvedSettings from(AfkCrabHelperConfig config)
+    {
+        return new ResolvedSettings(config);
+    }
+
+    AfkCrabHelperConfig.DisplayMode getDisplayMode()
+    {
+        return displayMode;
+    }
+
+    boolean isShowSessionStats()
+    {
+        return showSessionStats;
+    }
+
+    boolean isShowCrabWorlds()
+    {
+        return showCrabWorlds;
+    }
+
+    Color getOverlayColor()
+    {
+        return overlayColor;
+    }
+
+    boolean isHideWorld()
+    {
+        return hideWorld;
+    }
+
+    Font getFont()
+    {
+        return font;
+    }
+
+    Font getStatsFont()
+    {
+        return statsFont;
+    }
+
+    Color getFontColor()
+    {
+        return fontColor;
+    }
+
+    boolean isFlashEnabled()
+    {
+        return flashEnabled;
+    }
+
+    int getFlashThreshold()
+    {
+        return flashThreshold;
+    }
+
+    Color getFlashColor()
+    {
+        return flashColor;
+    }
+
+    boolean isLowHpNotification()
+    {
+        return lowHpNotification;
+    }
+
+    boolean isLowHpSound()
+    {
+        return lowHpSound;
+    }
+
+    int getActivationDelayTicks()
+    {
+        return activationDelayTicks;
+    }
+
+    int getHideDelayTicks()
+    {
+        return hideDelayTicks;
+    }
+
+    boolean isRecordSessions()
+    {
+        return recordSessions;
+    }
+
+    boolean isShareCrabState()
+    {
+        return shareCrabState;
+    }
+
+    CrabMatcher getCrabMatcher()
+    {
+        return crabMatcher;
+    }
+
+    CrabRegions getCrabRegions()
+    {
+        return crabRegions;
+    }
+}
@@ -0,0 +1,207 @@
+package com.afkcrabhelper;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.client.RuneLite;
+
+/**
+ * Append-only binary log of crab sessions under the RuneLite directory.
+ *
+ * The client thread only puts finished sessions into a single-producer,
+ * single-consumer ring. The executor drains the ring in batches and appends them
+ * to the file, so no file I/O ever happens on the client thread. The file is an
+ * 8 byte header followed by fixed-size {@link SessionRecord}s, and is read back
+ * through a memory mapping.
+ */
+@Slf4j
+@Singleton
+class SessionHistory
+{
+    static final int MAGIC = 0x41434853;
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 8;
+
+    private static final int CAPACITY = 64;
+    private static final long FLUSH_SECONDS = 30;
+
+    private final ScheduledExecutorService executor;
+    private final File file;
+
+    private final AtomicReferenceArray<SessionRecord> ring = new AtomicReferenceArray<>(CAPACITY);
+    // Next slot to write and next slot to read, only ever increasing
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+    private final ByteBuffer batch = ByteBuffer.allocate(CAPACITY * SessionRecord.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+
+    private ScheduledFuture<?> flushTask;
+
+    @Inject
+    SessionHistory(ScheduledExecutorService executor)
+    {
+        this(executor, new File(new File(RuneLite.RUNELITE_DIR, "afk-crab-helper"), "sessions.bin"));
+    }
+
+    SessionHistory(ScheduledExecutorService executor, File file)
+    {
+        this.executor = executor;
+        this.file = file;
+    }
+
+    File getFile()
+    {
+        return file;
+    }
+
+    void start()
+    {
+        if (flushTask == null)
+        {
+            flushTask = executor.scheduleWithFixedDelay(this::flush, FLUSH_SECONDS, FLUSH_SECONDS, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Stops the periodic flush and writes whatever is still queued.
+     */
+    void stop()
+    {
+        if (flushTask != null)
+        {
+            flushTask.cancel(false);
+            flushTask = null;
+        }
+        executor.execute(this::flush);
+    }
+
+    /**
+     * Queues a session for writing. Called only from the client thread.
+     *
+     * @return false if the ring is full and the session was dropped
+     */
+    boolean record(SessionRecord record)
+    {
+        long t = tail.get();
+        if (t - head.get() >= CAPACITY)
+        {
+            log.debug("Session history queue full, dropping session");
+            return false;
+        }
+        ring.lazySet((int) (t & (CAPACITY - 1)), record);
+        tail.lazySet(t + 1);
+        return true;
+    }
+
+    /**
+     * Appends queued sessions to the file. Called only from the executor.
+     */
+    synchronized void flush()
+    {
+        long h = head.get();
+        long t = tail.get();
+        if (h == t)
+        {
+            return;
+        }
+
+        batch.clear();
+        for (; h < t; h++)
+        {
+            int slot = (int) (h & (CAPACITY - 1));
+            ring.get(slot).write(batch);
+            ring.lazySet(slot, null);
+        }
+        head.lazySet(h);
+        batch.flip();
+
+        try
+        {
+            File dir = file.getParentFile();
+            if (dir != null && !dir.isDirectory() && !dir.mkdirs())
+            {
+                throw new IOException("Unable to create " + dir);
+            }
+
+            try (FileChannel channel = FileChannel.open(file.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND))
+            {
+                long size = channel.size();
+                long aligned = size < HEADER_BYTES ? 0
+                    : size - (size - HEADER_BYTES) % SessionRecord.BYTES;
+                if (aligned != size)
+                {
+                    // Drop a record cut short by a crash so later ones stay aligned
+                    channel.truncate(aligned);
+                }
+                if (aligned == 0)
+                {
+                    ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+                    header.putInt(MAGIC).putInt(VERSION).flip();
+                    writeFully(channel, header);
+                }
+                writeFully(channel, batch);
+            }
+        }
+        catch (IOException e)
+        {
+            log.warn("Unable to write session history", e);
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException
+    {
+        while (buffer.hasRemaining())
+        {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Reads every complete session in the file, oldest first. Not for the client thread.
+     */
+    static List<SessionRecord> read(File file) throws IOException
+    {
+        List<SessionRecord> records = new ArrayList<>();
+        if (!file.isFile())
+        {
+            return records;
+        }
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ))
+        {
+            long size = channel.size();
+            if (size < HEADER_BYTES)
+            {
+                return records;
+            }
+
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            mapped.order(ByteOrder.LITTLE_ENDIAN);
+            if (mapped.getInt() != MAGIC || mapped.getInt() != VERSION)
+            {
+                throw new IOException("Not a session history file: " + file);
+            }
+
+            // A record cut short by a crash mid-write is ignored
+            while (mapped.remaining() >= SessionRecord.BYTES)
+            {
+                records.add(SessionRecord.read(mapped));
+            }
+        }
+        return records;
+    }
+}
@@ -0,0 +1,107 @@
+package com.afkcrabhelper;
+
+import java.nio.ByteBuffer;
+
+/**
+ * One crab session, from the player starting to fight a crab until tracking ends.
+ * Stored as a fixed-size little-endian record in the session history file.
+ */
+final class SessionRecord
+{
+    static final int BYTES = 32;
+
+    private final long startMillis;
+    private final int startTick;
+    private final int endTick;
+    private final CrabType crabType;
+    private final int world;
+    // Share of max HP drained during the session, in tenths of a percent. Sand
+    // crabs respawn in place, so a long session passes 100% many times over
+    private final int hpDrainedPermille;
+    private final int xpGained;
+    private final int afkTicks;
+
+    SessionRecord(long startMillis, int startTick, int endTick, CrabType crabType, int world,
+        int hpDrainedPermille, int xpGained, int afkTicks)
+    {
+        this.startMillis = startMillis;
+        this.startTick = startTick;
+        this.endTick = endTick;
+        this.crabType = crabType;
+        this.world = world;
+        this.hpDrainedPermille = hpDrainedPermille;
+        this.xpGained = xpGained;
+        this.afkTicks = afkTicks;
+    }
+
+    void write(ByteBuffer buffer)
+    {
+        buffer.putLong(startMillis);
+        buffer.putInt(startTick);
+        buffer.putInt(endTick);
+        buffer.putInt(xpGained);
+        buffer.putInt(afkTicks);
+        buffer.putInt(hpDrainedPermille);
+        buffer.putShort((short) world);
+        buffer.put((byte) crabType.ordinal());
+        // Reserved
+        buffer.put((byte) 0);
+    }
+
+    static SessionRecord read(ByteBuffer buffer)
+    {
+        long startMillis = buffer.getLong();
+        int startTick = buffer.getInt();
+        int endTick = buffer.getInt();
+        int xpGained = buffer.getInt();
+        int afkTicks = buffer.getInt();
+        int hpDrainedPermille = buffer.getInt();
+        int world = buffer.getShort() & 0xFFFF;
+        int type = buffer.get();
+        buffer.get();
+
+        CrabType[] types = CrabType.values();
+        CrabType crabType = type >= 0 && type < types.length ? types[type] : CrabType.CUSTOM;
+        return new SessionRecord(startMillis, startTick, endTick, crabType, world, hpDrainedPermille, xpGained, afkTicks);
+    }
+
+    long getStartMillis()
+    {
+        return startMillis;
+    }
+
+    int getStartTick()
+    {
+        return startTick;
+    }
+
+    int getEndTick()
+    {
+        return endTick;
+    }
+
+    CrabType getCrabType()
+    {
+        return crabType;
+    }
+
+    int getWorld()
+    {
+        return world;
+    }
+
+    int getHpDrainedPermille()
+    {
+        return hpDrainedPermille;
+    }
+
+    int getXpGained()
+    {
+        return xpGained;
+    }
+
+    int getAfkTicks()
+    {
+        return afkTicks;
+    }
+}
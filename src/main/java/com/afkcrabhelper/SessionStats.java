@@ -0,0 +1,129 @@
+package com.afkcrabhelper;
+
+import java.util.Arrays;
+import net.runelite.api.Skill;
+
+/**
+ * Running XP and uptime statistics over all time spent on crabs since the plugin
+ * started, updated in O(1) per event with memory that does not grow with time.
+ *
+ * XP/hour is an exponentially weighted moving average of XP per tracked tick with
+ * a time constant of {@link #TIME_CONSTANT_TICKS}, so it follows changes in
+ * training speed within minutes while smoothing out the gaps between hits. The
+ * average is divided by the total weight seen so far, which removes the bias
+ * towards zero of an average started from nothing.
+ */
+final class SessionStats
+{
+    static final int TICKS_PER_HOUR = 6000;
+    // Five minutes
+    static final int TIME_CONSTANT_TICKS = 500;
+    private static final double DECAY = Math.exp(-1.0 / TIME_CONSTANT_TICKS);
+
+    // Last XP seen per skill, -1 until the first StatChanged gives a baseline
+    private final int[] skillXp = new int[Skill.values().length];
+
+    private long totalXp;
+    private int pendingXp;
+    private double averageXp;
+    private double averageWeight;
+
+    private int crabsKilled;
+    private int trackedTicks;
+    private int combatTicks;
+
+    SessionStats()
+    {
+        reset();
+    }
+
+    void reset()
+    {
+        Arrays.fill(skillXp, -1);
+        totalXp = 0;
+        pendingXp = 0;
+        averageXp = 0;
+        averageWeight = 0;
+        crabsKilled = 0;
+        trackedTicks = 0;
+        combatTicks = 0;
+    }
+
+    /**
+     * Forgets the XP baselines, as after logging out, without losing the totals.
+     */
+    void clearBaselines()
+    {
+        Arrays.fill(skillXp, -1);
+    }
+
+    /**
+     * Takes the XP from a StatChanged event, counting the gain only if {@code counted}.
+     */
+    void onXp(Skill skill, int xp, boolean counted)
+    {
+        int index = skill.ordinal();
+        int last = skillXp[index];
+        skillXp[index] = xp;
+        if (counted && last >= 0 && xp > last)
+        {
+            int gained = xp - last;
+            totalXp += gained;
+            pendingXp += gained;
+        }
+    }
+
+    void onCrabKilled()
+    {
+        crabsKilled++;
+    }
+
+    /**
+     * Advances the statistics by one logged-in tick near crabs, fighting or not.
+     */
+    void onTick(boolean inCombat)
+    {
+        trackedTicks++;
+        if (inCombat)
+        {
+            combatTicks++;
+        }
+
+        averageXp = averageXp * DECAY + pendingXp * (1 - DECAY);
+        averageWeight = averageWeight * DECAY + (1 - DECAY);
+        pendingXp = 0;
+    }
+
+    long getTotalXp()
+    {
+        return totalXp;
+    }
+
+    double getXpPerHour()
+    {
+        return averageWeight > 0 ? averageXp / averageWeight * TICKS_PER_HOUR : 0;
+    }
+
+    int getCrabsKilled()
+    {
+        return crabsKilled;
+    }
+
+    int getTrackedTicks()
+    {
+        return trackedTicks;
+    }
+
+    int getCombatTicks()
+    {
+        return combatTicks;
+    }
+
+    /**
+     * Share of the ticks near crabs spent fighting one, from 0 to 1.
+     */
+    double getUptime()
+    {
+        return trackedTicks > 0 ? (double) combatTicks / trackedTicks : 0;
+    }
+}
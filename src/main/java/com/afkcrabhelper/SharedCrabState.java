@@ -0,0 +1,383 @@
+package com.afkcrabhelper;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ScheduledExecutorService;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.client.RuneLite;
+
+/**
+ * Tracked crab state shared between RuneLite clients on the same machine through a
+ * small memory-mapped file, so a client arriving at a crab another one is already
+ * fighting gets its HP and drain rate straight away.
+ *
+ * The file is a 16 byte header followed by {@link #SLOTS} fixed-size slots. Each
+ * client owns one slot, claimed by locking a byte far past the end of the file so
+ * the OS releases it if the client dies, and is the only writer of that slot.
+ * Slots are written as seqlocks: the sequence number is odd while a write is in
+ * progress, and a reader retries or skips a slot whose sequence was odd or changed
+ * while it was copied, so no side ever waits on another. Java 8 has no public
+ * fences to order the plain accesses to mapped memory around the sequence, so on
+ * weakly ordered CPUs a copy can still be torn. Each slot therefore also carries a
+ * checksum of its fields, and a copy that does not match it is rejected.
+ *
+ * Opening, mapping and locking happen on the executor. The client thread only reads
+ * and writes the mapped memory, without allocating.
+ */
+@Slf4j
+@Singleton
+class SharedCrabState
+{
+    static final int MAGIC = 0x41435353;
+    static final int VERSION = 2;
+    static final int SLOTS = 16;
+
+    private static final int HEADER_BYTES = 16;
+    private static final int SLOT_BYTES = 64;
+    private static final int FILE_BYTES = HEADER_BYTES + SLOTS * SLOT_BYTES;
+
+    // Slot layout
+    private static final int SEQUENCE = 0;
+    private static final int WORLD = 8;
+    private static final int NPC_INDEX = 12;
+    private static final int FRACTION = 16;
+    private static final int DRAIN_PER_TICK = 24;
+    private static final int SAMPLE_MILLIS = 32;
+    private static final int CHECKSUM = 40;
+
+    // Locks are taken on bytes past anything that is mapped, so they never get in
+    // the way of mapped access on platforms with mandatory locking
+    private static final long LOCK_BASE = 1L << 30;
+    private static final long INIT_LOCK = LOCK_BASE + SLOTS;
+    private static final int READ_ATTEMPTS = 3;
+
+    private final ScheduledExecutorService executor;
+    private final File file;
+
+    // Set on the executor once the file is mapped and a slot is claimed
+    private volatile Mapping mapping;
+    private FileChannel channel;
+    private FileLock slotLock;
+    private volatile boolean started;
+
+    @Inject
+    SharedCrabState(ScheduledExecutorService executor)
+    {
+        this(executor, new File(new File(RuneLite.RUNELITE_DIR, "afk-crab-helper"), "shared.bin"));
+    }
+
+    SharedCrabState(ScheduledExecutorService executor, File file)
+    {
+        this.executor = executor;
+        this.file = file;
+    }
+
+    boolean isStarted()
+    {
+        return started;
+    }
+
+    void start()
+    {
+        if (!started)
+        {
+            started = true;
+            executor.execute(this::open);
+        }
+    }
+
+    void stop()
+    {
+        if (started)
+        {
+            started = false;
+            executor.execute(this::close);
+        }
+    }
+
+    /**
+     * Whether this client has a slot and shares its state.
+     */
+    boolean isOpen()
+    {
+        return mapping != null;
+    }
+
+    /**
+     * Publishes the tracked crab's state at the given wall clock time. Called only
+     * from the client thread.
+     */
+    void publish(int world, int npcIndex, double fraction, double drainPerTick, long sampleMillis)
+    {
+        Mapping mapping = this.mapping;
+        if (mapping != null)
+        {
+            write(mapping.slot, world, npcIndex, fraction, drainPerTick, sampleMillis);
+        }
+    }
+
+    /**
+     * Withdraws this client's state. Called only from the client thread.
+     */
+    void clear()
+    {
+        publish(0, -1, 0, 0, 0);
+    }
+
+    private static void write(ByteBuffer slot, int world, int npcIndex, double fraction, double drainPerTick,
+        long sampleMillis)
+    {
+        // Rounded down in case a previous owner died mid-write
+        long sequence = slot.getLong(SEQUENCE) & ~1L;
+        slot.putLong(SEQUENCE, sequence + 1);
+        slot.putInt(WORLD, world);
+        slot.putInt(NPC_INDEX, npcIndex);
+        slot.putDouble(FRACTION, fraction);
+        slot.putDouble(DRAIN_PER_TICK, drainPerTick);
+        slot.putLong(SAMPLE_MILLIS, sampleMillis);
+        slot.putLong(CHECKSUM, checksum(world, npcIndex, fraction, drainPerTick, sampleMillis));
+        slot.putLong(SEQUENCE, sequence + 2);
+    }
+
+    /**
+     * 64-bit mix of a slot's fields, so a copy mixing two writes is all but certain
+     * not to match.
+     */
+    private static long checksum(int world, int npcIndex, double fraction, double drainPerTick, long sampleMillis)
+    {
+        long hash = MAGIC;
+        hash = mix(hash, (long) world << 32 | npcIndex & 0xFFFFFFFFL);
+        hash = mix(hash, Double.doubleToRawLongBits(fraction));
+        hash = mix(hash, Double.doubleToRawLongBits(drainPerTick));
+        hash = mix(hash, sampleMillis);
+        return hash;
+    }
+
+    private static long mix(long hash, long value)
+    {
+        // The MurmurHash3 finalizer over the running hash and the next value
+        long h = (hash ^ value) * 0x9E3779B97F4A7C15L;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        return h ^ h >>> 33;
+    }
+
+    /**
+     * Copies into {@code out} the most recent state another client published for the
+     * crab, if it is at most {@code maxAgeMillis} old. Called only from the client thread.
+     */
+    boolean read(int world, int npcIndex, long nowMillis, long maxAgeMillis, Entry out)
+    {
+        Mapping mapping = this.mapping;
+        if (mapping == null || world <= 0)
+        {
+            return false;
+        }
+
+        MappedByteBuffer buffer = mapping.file;
+        boolean found = false;
+        long newest = nowMillis - maxAgeMillis;
+        for (int slot = 0; slot < SLOTS; slot++)
+        {
+            int base = HEADER_BYTES + slot * SLOT_BYTES;
+            if (base == mapping.slotOffset)
+            {
+                continue;
+            }
+
+            for (int attempt = 0; attempt < READ_ATTEMPTS; attempt++)
+            {
+                long sequence = buffer.getLong(base + SEQUENCE);
+                if ((sequence & 1) != 0)
+                {
+                    continue;
+                }
+                int slotWorld = buffer.getInt(base + WORLD);
+                int slotNpcIndex = buffer.getInt(base + NPC_INDEX);
+                double fraction = buffer.getDouble(base + FRACTION);
+                double drainPerTick = buffer.getDouble(base + DRAIN_PER_TICK);
+                long sampleMillis = buffer.getLong(base + SAMPLE_MILLIS);
+                long checksum = buffer.getLong(base + CHECKSUM);
+                if (buffer.getLong(base + SEQUENCE) != sequence
+                    || checksum != checksum(slotWorld, slotNpcIndex, fraction, drainPerTick, sampleMillis))
+                {
+                    continue;
+                }
+
+                if (slotWorld == world && slotNpcIndex == npcIndex && sampleMillis >= newest
+                    && Double.isFinite(fraction) && fraction >= 0 && fraction <= 1
+                    && Double.isFinite(drainPerTick) && drainPerTick > 0)
+                {
+                    newest = sampleMillis;
+                    out.fraction = fraction;
+                    out.drainPerTick = drainPerTick;
+                    out.sampleMillis = sampleMillis;
+                    found = true;
+                }
+                break;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Maps the file and claims a free slot. Called only from the executor.
+     */
+    private synchronized void open()
+    {
+        if (!started || mapping != null)
+        {
+            return;
+        }
+
+        try
+        {
+            File dir = file.getParentFile();
+            if (dir != null && !dir.isDirectory() && !dir.mkdirs())
+            {
+                throw new IOException("Unable to create " + dir);
+            }
+
+            channel = FileChannel.open(file.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            MappedByteBuffer mapped;
+            int slotOffset = 0;
+            // Only one client at a time may lay out a new or foreign file. File locks
+            // are per process, so the class lock covers a second instance in this one
+            synchronized (SharedCrabState.class)
+            {
+                FileLock initLock = channel.lock(INIT_LOCK, 1, false);
+                mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, FILE_BYTES);
+                mapped.order(ByteOrder.LITTLE_ENDIAN);
+                if (mapped.getInt(0) != MAGIC || mapped.getInt(4) != VERSION || mapped.getInt(8) != SLOTS)
+                {
+                    for (int i = 0; i < FILE_BYTES; i += 8)
+                    {
+                        mapped.putLong(i, 0);
+                    }
+                    mapped.putInt(0, MAGIC);
+                    mapped.putInt(4, VERSION);
+                    mapped.putInt(8, SLOTS);
+                }
+                initLock.release();
+
+                for (int slot = 0; slot < SLOTS && slotLock == null; slot++)
+                {
+                    slotLock = tryLock(LOCK_BASE + slot);
+                    slotOffset = HEADER_BYTES + slot * SLOT_BYTES;
+                }
+            }
+            if (slotLock == null)
+            {
+                log.debug("No free shared crab state slot");
+                closeChannel();
+                return;
+            }
+
+            mapped.position(slotOffset);
+            ByteBuffer slot = mapped.slice().order(ByteOrder.LITTLE_ENDIAN);
+            slot.limit(SLOT_BYTES);
+            // Whatever a previous owner left behind is withdrawn
+            write(slot, 0, -1, 0, 0, 0);
+            // Touch the pages now so the client thread never faults them in
+            mapped.load();
+            mapping = new Mapping(mapped, slot, slotOffset);
+        }
+        catch (IOException | RuntimeException e)
+        {
+            log.warn("Unable to open shared crab state", e);
+            closeChannel();
+        }
+    }
+
+    /**
+     * Gives up this client's slot. Called only from the executor, so the state is
+     * withdrawn by the client thread with {@link #clear()} beforehand, or goes stale.
+     */
+    private synchronized void close()
+    {
+        if (started || mapping == null)
+        {
+            return;
+        }
+
+        mapping = null;
+        closeChannel();
+    }
+
+    private FileLock tryLock(long position) throws IOException
+    {
+        try
+        {
+            return channel.tryLock(position, 1, false);
+        }
+        catch (OverlappingFileLockException e)
+        {
+            // Held by another instance in this process
+            return null;
+        }
+    }
+
+    private void closeChannel()
+    {
+        try
+        {
+            if (channel != null)
+            {
+                // Also releases the slot lock. The mapping stays valid until collected
+                channel.close();
+            }
+        }
+        catch (IOException e)
+        {
+            log.debug("Unable to close shared crab state", e);
+        }
+        channel = null;
+        slotLock = null;
+    }
+
+    private static final class Mapping
+    {
+        private final MappedByteBuffer file;
+        // View of the slot this client owns
+        private final ByteBuffer slot;
+        private final int slotOffset;
+
+        private Mapping(MappedByteBuffer file, ByteBuffer slot, int slotOffset)
+        {
+            this.file = file;
+            this.slot = slot;
+            this.slotOffset = slotOffset;
+        }
+    }
+
+    /**
+     * A crab's state as another client last published it.
+     */
+    static final class Entry
+    {
+        double fraction;
+        double drainPerTick;
+        long sampleMillis;
+
+        /**
+         * HP fraction at the given time, drained at the published rate.
+         */
+        double fractionAt(long nowMillis)
+        {
+            double ticks = Math.max(0, nowMillis - sampleMillis) / (double) TickClock.TICK_MILLIS;
+            return Math.max(0, fraction - drainPerTick * ticks);
+        }
+    }
+}
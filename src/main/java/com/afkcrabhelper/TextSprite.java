@@ -0,0 +1,101 @@
+package com.afkcrabhelper;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+
+/**
+ * Overlay text and its drop shadow rasterized once into a translucent image.
+ * The image is only rebuilt when the text, font or color changes, and where it is
+ * drawn only when that or the anchor point changes.
+ */
+class TextSprite
+{
+    static final int SHADOW_OFFSET = 2;
+
+    private String text;
+    private Font font;
+    private Color color;
+
+    private BufferedImage image;
+    private int textWidth;
+    private int ascent;
+
+    // Top left corner of the image for the last anchor point
+    private int centerX;
+    private int baselineY;
+    private int x;
+    private int y;
+
+    void draw(Graphics2D graphics, String text, Font font, Color color, int centerX, int baselineY)
+    {
+        if (image == null
+            || !text.equals(this.text)
+            || !font.equals(this.font)
+            || !color.equals(this.color))
+        {
+            rebuild(graphics, text, font, color);
+            layout(centerX, baselineY);
+        }
+        else if (centerX != this.centerX || baselineY != this.baselineY)
+        {
+            layout(centerX, baselineY);
+        }
+
+        graphics.drawImage(image, x, y, null);
+    }
+
+    private void layout(int centerX, int baselineY)
+    {
+        this.centerX = centerX;
+        this.baselineY = baselineY;
+        x = centerX - textWidth / 2;
+        y = baselineY - ascent;
+    }
+
+    void clear()
+    {
+        text = null;
+        font = null;
+        color = null;
+        image = null;
+    }
+
+    private void rebuild(Graphics2D graphics, String text, Font font, Color color)
+    {
+        FontMetrics metrics = graphics.getFontMetrics(font);
+        textWidth = metrics.stringWidth(text);
+        ascent = metrics.getAscent();
+        int width = Math.max(1, textWidth + SHADOW_OFFSET);
+        int height = Math.max(1, ascent + metrics.getDescent() + SHADOW_OFFSET);
+
+        BufferedImage sprite = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = sprite.createGraphics();
+        try
+        {
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            g.setFont(font);
+
+            // Draw shadow (slightly offset)
+            g.setColor(Color.BLACK);
+            g.drawString(text, SHADOW_OFFSET, ascent + SHADOW_OFFSET);
+
+            // Draw main text
+            g.setColor(color);
+            g.drawString(text, 0, ascent);
+        }
+        finally
+        {
+            g.dispose();
+        }
+
+        this.text = text;
+        this.font = font;
+        this.color = color;
+        this.image = sprite;
+    }
+}
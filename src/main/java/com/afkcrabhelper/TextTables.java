@@ -0,0 +1,200 @@
+package com.afkcrabhelper;
+
+/**
+ * Overlay strings looked up by HP tenths of a percent and seconds remaining, built
+ * the first time each one is needed. Text for a tick is then a couple of array
+ * reads instead of String.format calls. Only the combined HP and time text, and
+ * a time with its confidence band, are concatenated, and only when a part changes.
+ *
+ * Not thread safe, used from the client thread only.
+ */
+final class TextTables
+{
+    // Longer countdowns show as ">60:00"
+    private static final int MAX_SECONDS = 60 * 60;
+    private static final int OVER_RANGE = MAX_SECONDS + 1;
+    private static final int MAX_TENTHS = 1000;
+    // Bands are shown to the nearest 5 seconds
+    private static final int BAND_STEP_SECONDS = 5;
+
+    private final String[] hpTexts = new String[MAX_TENTHS + 1];
+    // Under a minute the countdown is in rounded seconds, so up to "60 seconds"
+    private final String[] secondsTexts = new String[61];
+    private final String[] shortSecondsTexts = new String[61];
+    // From a minute up it is minutes and truncated seconds
+    private final String[] remainingTexts = new String[OVER_RANGE + 1];
+    private final String[] shortRemainingTexts = new String[OVER_RANGE + 1];
+    private final String[] bandTexts = new String[MAX_SECONDS / BAND_STEP_SECONDS + 1];
+
+    private int lastHpTenths = -1;
+    private int lastTimeKey = Integer.MIN_VALUE;
+    private int lastBandSteps = -1;
+    private String lastCombined;
+
+    private int lastRemainingKey = Integer.MIN_VALUE;
+    private int lastRemainingBandSteps = -1;
+    private String lastRemaining;
+
+    /**
+     * "75.9% HP" for 759 tenths.
+     */
+    String hp(int tenths)
+    {
+        int clamped = Math.max(0, Math.min(MAX_TENTHS, tenths));
+        String text = hpTexts[clamped];
+        if (text == null)
+        {
+            text = (clamped / 10) + "." + (clamped % 10) + "% HP";
+            hpTexts[clamped] = text;
+        }
+        return text;
+    }
+
+    /**
+     * "12:34 ±0:20 remaining", or "45 seconds ±0:10" under a minute. The band is left
+     * out while it rounds to nothing.
+     */
+    String remaining(double minutes, double bandMinutes)
+    {
+        int key = timeKey(minutes);
+        int bandSteps = bandSteps(bandMinutes);
+        if (bandSteps == 0)
+        {
+            return remaining(key);
+        }
+
+        if (key != lastRemainingKey || bandSteps != lastRemainingBandSteps)
+        {
+            lastRemainingKey = key;
+            lastRemainingBandSteps = bandSteps;
+            lastRemaining = key < 0
+                ? remaining(key) + band(bandSteps)
+                : shortTime(key) + band(bandSteps) + " remaining";
+        }
+        return lastRemaining;
+    }
+
+    private String remaining(int key)
+    {
+        if (key < 0)
+        {
+            int seconds = -1 - key;
+            String text = secondsTexts[seconds];
+            if (text == null)
+            {
+                text = seconds + " seconds";
+                secondsTexts[seconds] = text;
+            }
+            return text;
+        }
+
+        String text = remainingTexts[key];
+        if (text == null)
+        {
+            text = timeText(key) + " remaining";
+            remainingTexts[key] = text;
+        }
+        return text;
+    }
+
+    /**
+     * "75.9% HP | 12:34 ±0:20", or "75.9% HP | 45s ±0:10" under a minute.
+     */
+    String hpAndTime(int tenths, double minutes, double bandMinutes)
+    {
+        int key = timeKey(minutes);
+        int bandSteps = bandSteps(bandMinutes);
+        if (tenths != lastHpTenths || key != lastTimeKey || bandSteps != lastBandSteps)
+        {
+            lastHpTenths = tenths;
+            lastTimeKey = key;
+            lastBandSteps = bandSteps;
+            lastCombined = hp(tenths) + " | " + shortTime(key) + (bandSteps == 0 ? "" : band(bandSteps));
+        }
+        return lastCombined;
+    }
+
+    /**
+     * " ±0:20" for 4 steps.
+     */
+    private String band(int steps)
+    {
+        String text = bandTexts[steps];
+        if (text == null)
+        {
+            text = " \u00B1" + clock(steps * BAND_STEP_SECONDS);
+            bandTexts[steps] = text;
+        }
+        return text;
+    }
+
+    private String shortTime(int key)
+    {
+        if (key < 0)
+        {
+            int seconds = -1 - key;
+            String text = shortSecondsTexts[seconds];
+            if (text == null)
+            {
+                text = seconds + "s";
+                shortSecondsTexts[seconds] = text;
+            }
+            return text;
+        }
+
+        String text = shortRemainingTexts[key];
+        if (text == null)
+        {
+            text = timeText(key);
+            shortRemainingTexts[key] = text;
+        }
+        return text;
+    }
+
+    /**
+     * Total seconds from a minute up, or -1 - seconds under a minute, where the
+     * seconds are rounded rather than truncated. Anything over {@link #MAX_SECONDS},
+     * including an infinite ETA, is {@link #OVER_RANGE}.
+     */
+    static int timeKey(double minutes)
+    {
+        if (!(minutes >= 0))
+        {
+            return -1;
+        }
+        if (minutes < 1.0)
+        {
+            return -1 - (int) Math.round(minutes * 60);
+        }
+        if (minutes > MAX_SECONDS / 60.0)
+        {
+            return OVER_RANGE;
+        }
+        int mins = (int) minutes;
+        return mins * 60 + (int) ((minutes - mins) * 60);
+    }
+
+    private static String timeText(int key)
+    {
+        return key == OVER_RANGE ? ">" + clock(MAX_SECONDS) : clock(key);
+    }
+
+    /**
+     * Band half width in {@link #BAND_STEP_SECONDS} steps, capped at {@link #MAX_SECONDS}.
+     */
+    static int bandSteps(double bandMinutes)
+    {
+        if (!(bandMinutes > 0))
+        {
+            return 0;
+        }
+        double seconds = Math.min(bandMinutes * 60, MAX_SECONDS);
+        return (int) Math.round(seconds / BAND_STEP_SECONDS);
+    }
+
+    private static String clock(int seconds)
+    {
+        int secs = seconds % 60;
+        return (seconds / 60) + (secs < 10 ? ":0" : ":") + secs;
+    }
+}
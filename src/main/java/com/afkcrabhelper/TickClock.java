@@ -0,0 +1,34 @@
+package com.afkcrabhelper;
+
+import com.google.inject.ImplementedBy;
+
+/**
+ * Game time used by the plugin's timer logic, measured in game ticks.
+ */
+@ImplementedBy(ClientTickClock.class)
+interface TickClock
+{
+    int TICK_MILLIS = 600;
+
+    /**
+     * Records the start of a new game tick. Called once per GameTick.
+     */
+    void onGameTick();
+
+    /**
+     * Current game tick.
+     */
+    int getTick();
+
+    /**
+     * Milliseconds since the current tick started, between 0 and {@link #TICK_MILLIS}.
+     * Only needed for effects that run faster than the tick rate.
+     */
+    int getMillisIntoTick();
+
+    static int secondsToTicks(int seconds)
+    {
+        // Round up so delays are never shorter than configured
+        return (seconds * 1000 + TICK_MILLIS - 1) / TICK_MILLIS;
+    }
+}
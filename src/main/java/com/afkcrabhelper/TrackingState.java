@@ -0,0 +1,18 @@
+package com.afkcrabhelper;
+
+/**
+ * Lifecycle of the crab the local player is fighting.
+ */
+enum TrackingState
+{
+    // Not fighting a crab; game ticks do no work
+    IDLE,
+    // Fighting a crab but still inside the activation delay
+    ARMING,
+    // Fighting a crab with the overlay showing
+    ACTIVE,
+    // Stopped fighting the crab, waiting out the hide delay
+    GRACE,
+    // The tracked crab has no HP left but has not despawned yet
+    CRAB_DEAD
+}
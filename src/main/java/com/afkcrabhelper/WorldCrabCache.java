@@ -0,0 +1,209 @@
+package com.afkcrabhelper;
+
+import java.util.Arrays;
+
+/**
+ * Last known state of the Gemstone Crab on each recently visited world, so worlds
+ * can be ranked by how long their crab has left before hopping.
+ *
+ * There is one Gemstone Crab per world, so entries are keyed by world. Each keeps
+ * the HP fraction, drain rate and time of the last observation, and the time the
+ * crab is predicted to die. Tick counts restart with every login or hop, so times
+ * are wall clock milliseconds. The cache holds a fixed number of worlds in parallel
+ * arrays; an entry expires {@code ttlMillis} after it was observed and, when the
+ * cache is full, the least recently observed world makes room. Updates are a
+ * linear scan of the few slots and never allocate.
+ *
+ * Not thread safe, used from the client thread only. The overlay reads an
+ * immutable {@link Snapshot}.
+ */
+final class WorldCrabCache
+{
+    private final long ttlMillis;
+
+    private final int[] worlds;
+    private final double[] fractions;
+    private final double[] drainsPerTick;
+    private final long[] observedMillis;
+    private final long[] deathMillis;
+    // Observation order, the lowest is the least recently used
+    private final long[] lastUsed;
+    private long useCount;
+
+    WorldCrabCache(int capacity, long ttlMillis)
+    {
+        this.ttlMillis = ttlMillis;
+        worlds = new int[capacity];
+        fractions = new double[capacity];
+        drainsPerTick = new double[capacity];
+        observedMillis = new long[capacity];
+        deathMillis = new long[capacity];
+        lastUsed = new long[capacity];
+    }
+
+    /**
+     * Records the crab on a world as seen at the given time.
+     */
+    void observe(int world, double fraction, double drainPerTick, long nowMillis)
+    {
+        if (world <= 0 || drainPerTick <= 0)
+        {
+            return;
+        }
+
+        int slot = -1;
+        int victim = 0;
+        for (int i = 0; i < worlds.length; i++)
+        {
+            if (worlds[i] == world)
+            {
+                slot = i;
+                break;
+            }
+            // Empty and expired slots go first, then the least recently used
+            if (usage(victim, nowMillis) > usage(i, nowMillis))
+            {
+                victim = i;
+            }
+        }
+        if (slot < 0)
+        {
+            slot = victim;
+            worlds[slot] = world;
+        }
+
+        double clamped = Math.max(0, Math.min(1, fraction));
+        fractions[slot] = clamped;
+        drainsPerTick[slot] = drainPerTick;
+        observedMillis[slot] = nowMillis;
+        deathMillis[slot] = nowMillis + (long) (clamped / drainPerTick * TickClock.TICK_MILLIS);
+        lastUsed[slot] = ++useCount;
+    }
+
+    private long usage(int slot, long nowMillis)
+    {
+        return worlds[slot] == 0 || isExpired(slot, nowMillis) ? -1 : lastUsed[slot];
+    }
+
+    private boolean isExpired(int slot, long nowMillis)
+    {
+        return nowMillis - observedMillis[slot] > ttlMillis;
+    }
+
+    /**
+     * Index of the world's entry, or -1 if it is not cached or has expired.
+     */
+    int indexOf(int world, long nowMillis)
+    {
+        for (int i = 0; i < worlds.length; i++)
+        {
+            if (worlds[i] == world && world > 0)
+            {
+                return isExpired(i, nowMillis) ? -1 : i;
+            }
+        }
+        return -1;
+    }
+
+    double getFraction(int index)
+    {
+        return fractions[index];
+    }
+
+    double getDrainPerTick(int index)
+    {
+        return drainsPerTick[index];
+    }
+
+    long getObservedMillis(int index)
+    {
+        return observedMillis[index];
+    }
+
+    long getDeathMillis(int index)
+    {
+        return deathMillis[index];
+    }
+
+    void clear()
+    {
+        Arrays.fill(worlds, 0);
+        useCount = 0;
+        Arrays.fill(lastUsed, 0);
+    }
+
+    /**
+     * Worlds that have not expired, the one whose crab lives longest first.
+     */
+    Snapshot snapshot(long nowMillis)
+    {
+        int count = 0;
+        int[] order = new int[worlds.length];
+        for (int i = 0; i < worlds.length; i++)
+        {
+            if (worlds[i] == 0 || isExpired(i, nowMillis))
+            {
+                continue;
+            }
+
+            // Insertion sort, there are only a few worlds
+            int at = count++;
+            while (at > 0 && deathMillis[order[at - 1]] < deathMillis[i])
+            {
+                order[at] = order[at - 1];
+                at--;
+            }
+            order[at] = i;
+        }
+
+        int[] rankedWorlds = new int[count];
+        long[] rankedDeaths = new long[count];
+        long[] rankedExpiries = new long[count];
+        for (int i = 0; i < count; i++)
+        {
+            rankedWorlds[i] = worlds[order[i]];
+            rankedDeaths[i] = deathMillis[order[i]];
+            rankedExpiries[i] = observedMillis[order[i]] + ttlMillis;
+        }
+        return new Snapshot(rankedWorlds, rankedDeaths, rankedExpiries);
+    }
+
+    static final class Snapshot
+    {
+        static final Snapshot EMPTY = new Snapshot(new int[0], new long[0], new long[0]);
+
+        private final int[] worlds;
+        private final long[] deathMillis;
+        private final long[] expiryMillis;
+
+        private Snapshot(int[] worlds, long[] deathMillis, long[] expiryMillis)
+        {
+            this.worlds = worlds;
+            this.deathMillis = deathMillis;
+            this.expiryMillis = expiryMillis;
+        }
+
+        int size()
+        {
+            return worlds.length;
+        }
+
+        int getWorld(int rank)
+        {
+            return worlds[rank];
+        }
+
+        /**
+         * Predicted wall clock time the crab on the world dies.
+         */
+        long getDeathMillis(int rank)
+        {
+            return deathMillis[rank];
+        }
+
+        boolean isExpired(int rank, long nowMillis)
+        {
+            return nowMillis > expiryMillis[rank];
+        }
+    }
+}
@@ -0,0 +1,824 @@
+package com.afkcrabhelper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.io.InputStream;
+import java.util.List;
+import net.runelite.api.Skill;
+import org.junit.Test;
+
+public class AfkCrabHelperSimulationTest
+{
+	private static final int CRAB = 1;
+
+	private static AfkCrabHelperConfig config(int activationDelay, int hideDelay)
+	{
+		return new AfkCrabHelperConfig()
+		{
+			@Override
+			public int activationDelay()
+			{
+				return activationDelay;
+			}
+
+			@Override
+			public int hideDelay()
+			{
+				return hideDelay;
+			}
+		};
+	}
+
+	private static EventTrace gemstoneCrab()
+	{
+		return new EventTrace()
+			.spawn(0, CRAB, TestNpcs.GEMSTONE_CRAB_ID, "Gemstone Crab")
+			.health(0, CRAB, 30, 30);
+	}
+
+	/**
+	 * Parses the overlay's countdown text into seconds.
+	 */
+	private static int remainingSeconds(String text)
+	{
+		// "12:34 remaining", "45 seconds", either followed by a band
+		String time = text.substring(0, text.indexOf(' '));
+		int colon = time.indexOf(':');
+		if (colon < 0)
+		{
+			return Integer.parseInt(time);
+		}
+		return Integer.parseInt(time.substring(0, colon)) * 60 + Integer.parseInt(time.substring(colon + 1));
+	}
+
+	@Test
+	public void testActivationDelay() throws Exception
+	{
+		// 3 seconds rounds up to 5 ticks
+		PluginHarness harness = new PluginHarness(config(3, 0));
+		EventTrace trace = gemstoneCrab().interact(10, CRAB);
+
+		new EventTraceSimulator(harness).run(trace, 30, (tick, state) ->
+			assertEquals("visible at tick " + tick, tick >= 15, state.isVisible()));
+	}
+
+	@Test
+	public void testHideDelay() throws Exception
+	{
+		PluginHarness harness = new PluginHarness(config(0, 3));
+		EventTrace trace = gemstoneCrab()
+			.interact(1, CRAB)
+			.interact(100, -1);
+
+		new EventTraceSimulator(harness).run(trace, 120, (tick, state) ->
+			assertEquals("visible at tick " + tick, tick < 105, state.isVisible()));
+	}
+
+	@Test
+	public void testTrackingStates() throws Exception
+	{
+		PluginHarness harness = new PluginHarness(config(3, 3));
+		EventTrace trace = gemstoneCrab()
+			.interact(10, CRAB)
+			.interact(50, -1)
+			.interact(52, CRAB)
+			.health(80, CRAB, 0, 30)
+			.despawn(90, CRAB);
+
+		new EventTraceSimulator(harness).run(trace, 100, (tick, state) ->
+		{
+			TrackingState expected;
+			if (tick < 10 || tick >= 90)
+			{
+				expected = TrackingState.IDLE;
+			}
+			else if (tick < 15)
+			{
+				expected = TrackingState.ARMING;
+			}
+			else if (tick >= 50 && tick < 52)
+			{
+				expected = TrackingState.GRACE;
+			}
+			else if (tick >= 80)
+			{
+				expected = TrackingState.CRAB_DEAD;
+			}
+			else
+			{
+				expected = TrackingState.ACTIVE;
+			}
+			assertEquals("state at tick " + tick, expected, harness.plugin.getTrackingState());
+			assertEquals("visible at tick " + tick, tick >= 15 && tick < 90, state.isVisible());
+		});
+	}
+
+	@Test
+	public void testDespawnHidesImmediately() throws Exception
+	{
+		PluginHarness harness = new PluginHarness(config(0, 0));
+		EventTrace trace = gemstoneCrab()
+			.interact(1, CRAB)
+			.despawn(50, CRAB);
+
+		new EventTraceSimulator(harness).run(trace, 60, (tick, state) ->
+			assertEquals("visible at tick " + tick, tick < 50, state.isVisible()));
+	}
+
+	@Test
+	public void testCountdownFollowsDrain() throws Exception
+	{
+		PluginHarness harness = new PluginHarness(config(0, 0));
+		// 900 ticks is 9 minutes, a bit faster than the default estimate
+		EventTrace trace = gemstoneCrab()
+			.interact(1, CRAB)
+			.linearDrain(1, CRAB, 900, 30);
+
+		new EventTraceSimulator(harness).run(trace, 905, (tick, state) ->
+		{
+			assertTrue(state.isVisible());
+			assertNotNull(state.getText());
+
+			if (tick >= 901)
+			{
+				assertEquals("Crab dead", state.getText());
+			}
+			else if (tick >= 300)
+			{
+				// Once the estimate has settled it should be within 30 seconds
+				int expected = (901 - tick) * TickClock.TICK_MILLIS / 1000;
+				int actual = remainingSeconds(state.getText());
+				assertTrue("tick " + tick + ": expected ~" + expected + "s, got " + state.getText(),
+					Math.abs(actual - expected) <= 30);
+			}
+
+			// The confidence band narrows until it rounds away as the samples agree
+			if (tick == 300)
+			{
+				assertTrue("got " + state.getText(), state.getText().contains(" \u00B10:"));
+			}
+			else if (tick == 600)
+			{
+				assertFalse("got " + state.getText(), state.getText().contains("\u00B1"));
+			}
+		});
+	}
+
+	@Test
+	public void testHitsplatsGiveExactHitpoints() throws Exception
+	{
+		PluginHarness harness = new PluginHarness(new AfkCrabHelperConfig()
+		{
+			@Override
+			public DisplayMode displayMode()
+			{
+				return DisplayMode.HP_PERCENTAGE;
+			}
+		});
+
+		int max = AfkCrabHelperPlugin.GEMSTONE_CRAB_HITPOINTS;
+		int[] hitpoints = new int[101];
+		hitpoints[0] = max;
+		EventTrace trace = gemstoneCrab().interact(1, CRAB);
+		for (int tick = 1; tick <= 100; tick++)
+		{
+			hitpoints[tick] = hitpoints[tick - 1] - 37;
+			// The value the server sends for the bar
+			trace.hit(tick, CRAB, 37, 1 + 29 * hitpoints[tick] / max, 30);
+		}
+		// A bar update whose hitsplats were missed pulls the count into its range
+		trace.health(101, CRAB, 18, 30);
+
+		new EventTraceSimulator(harness).run(trace, 101, (tick, state) ->
+		{
+			if (tick <= 100)
+			{
+				int tenths = (hitpoints[tick] * 1000 + max / 2) / max;
+				assertEquals(tenths / 10 + "." + tenths % 10 + "% HP", state.getText());
+			}
+			else
+			{
+				// Ratio 18 of 30 allows up to 6206 HP
+				assertEquals("62.1% HP", state.getText());
+			}
+		});
+	}
+
+	@Test
+	public void testLowHpAlert() throws Exception
+	{
+		PluginHarness harness = new PluginHarness(new AfkCrabHelperConfig()
+		{
+			@Override
+			public int flashThreshold()
+			{
+				return 10;
+			}
+
+			@Override
+			public boolean lowHpSound()
+			{
+				return true;
+			}
+		});
+		// HP crosses 10% at tick 811
+		EventTrace trace = gemstoneCrab()
+			.interact(1, CRAB)
+			.linearDrain(1, CRAB, 900, 30);
+
+		int[] flashTick = {-1};
+		new EventTraceSimulator(harness).run(trace, 905, (tick, state) ->
+		{
+			if (state.isFlash() && flashTick[0] < 0)
+			{
+				flashTick[0] = tick;
+				assertEquals(1, harness.client.getSoundEffects().size());
+			}
+			assertEquals("flash at tick " + tick, flashTick[0] >= 0, state.isFlash());
+		});
+
+		// Predicted from the drain rate, so it fires within a bar segment of the crossing
+		assertTrue("flashed at tick " + flashTick[0], Math.abs(flashTick[0] - 811) <= 30);
+		assertEquals(1, harness.client.getSoundEffects().size());
+	}
+
+	@Test
+	public void testLearnedDrainRate() throws Exception
+	{
+		PluginHarness harness = new PluginHarness(config(0, 0));
+		// Six minutes a crab, quicker than the default estimate of ten
+		int next = CRAB + 1;
+		EventTrace trace = gemstoneCrab()
+			.interact(1, CRAB)
+			.linearDrain(1, CRAB, 600, 30)
+			.despawn(605, CRAB)
+			.spawn(650, next, TestNpcs.GEMSTONE_CRAB_ID, "Gemstone Crab")
+			.health(650, next, 30, 30)
+			.interact(650, next);
+
+		new EventTraceSimulator(harness).run(trace, 650, (tick, state) ->
+		{
+			if (tick == 650)
+			{
+				// The first crab's rate is used before the new one has a fit
+				int remaining = remainingSeconds(state.getText());
+				assertTrue("got " + state.getText(), Math.abs(remaining - 360) <= 30);
+			}
+		});
+	}
+
+	@Test
+	public void testLearnedDrainPerSetup() throws Exception
+	{
+		PluginHarness harness = new PluginHarness(config(0, 0));
+		harness.player.setCombatLevel(100);
+		FakeNpc crab = harness.spawn("Sand Crab", TestNpcs.SAND_CRAB_ID, CRAB);
+		crab.setHealth(30, 30);
+		harness.interact(crab);
+		harness.tick();
+		// Five minutes a crab
+		for (int ratio = 29; ratio >= 0; ratio--)
+		{
+			harness.ticks(500 / 30);
+			harness.hit(crab, 1, ratio, 30);
+		}
+		harness.tick();
+		harness.despawn(crab);
+		harness.tick();
+
+		// Sand crabs are learned too, keyed by the player's combat level rather than the crowd
+		DrainCalibration calibration = harness.injector.getInstance(DrainCalibration.class);
+		double learned = calibration.getDrainPerTick(CrabType.SAND_CRAB,
+			DrainCalibration.bucket(CrabType.SAND_CRAB, 1, 100));
+		assertEquals(1.0 / 480, learned, 1.0 / 4800);
+		assertEquals(0, calibration.getDrainPerTick(CrabType.SAND_CRAB,
+			DrainCalibration.bucket(CrabType.SAND_CRAB, 1, 30)), 0);
+	}
+
+	@Test
+	public void testSessionStats() throws Exception
+	{
+		PluginHarness harness = new PluginHarness(new AfkCrabHelperConfig()
+		{
+			@Override
+			public boolean showSessionStats()
+			{
+				return true;
+			}
+		});
+		FakeNpc crab = harness.spawn("Gemstone Crab", TestNpcs.GEMSTONE_CRAB_ID, CRAB);
+		crab.setHealth(30, 30);
+		// XP before the fight is only a baseline
+		harness.setXp(Skill.ATTACK, 100_000);
+		harness.interact(crab);
+		harness.tick();
+
+		// 40 XP every 4 ticks is 60k XP/h
+		int xp = 100_000;
+		for (int i = 0; i < 1500; i++)
+		{
+			harness.ticks(4);
+			xp += 40;
+			harness.setXp(Skill.ATTACK, xp);
+		}
+		assertEquals(60_000, harness.plugin.getStats().getTotalXp());
+		assertEquals(60_000, harness.plugin.getStats().getXpPerHour(), 600);
+
+		harness.hit(crab, 0, 0, 30);
+		harness.tick();
+		// The average ripples a little between gains
+		String text = harness.plugin.getDisplayState().getStatsText();
+		assertTrue(text, text.matches("(59\\.\\d|60\\.\\d)k XP/h \\| 1 kill \\| 100% uptime"));
+
+		// Standing by the crabs without fighting, long after tracking ended, counts as well
+		FakeNpc next = harness.spawn("Gemstone Crab", TestNpcs.GEMSTONE_CRAB_ID, CRAB + 1);
+		next.setHealth(30, 30);
+		harness.despawn(crab);
+		harness.ticks(6000);
+		SessionStats stats = harness.plugin.getStats();
+		// Along with the tick the crab lay dead
+		assertEquals(6001, stats.getTrackedTicks() - stats.getCombatTicks());
+		assertEquals(0, stats.getXpPerHour(), 1);
+
+		// Shown once the next crab is tracked
+		harness.interact(next);
+		harness.tick();
+		assertEquals("0.0k XP/h | 1 kill | 50% uptime", harness.plugin.getDisplayState().getStatsText());
+
+		// Away from any crab nothing is counted
+		harness.despawn(next);
+		int tracked = stats.getTrackedTicks();
+		harness.ticks(100);
+		assertEquals(tracked, stats.getTrackedTicks());
+		harness.shutDown();
+	}
+
+	@Test
+	public void testSharedCrabState() throws Exception
+	{
+		AfkCrabHelperConfig config = new AfkCrabHelperConfig()
+		{
+			@Override
+			public int activationDelay()
+			{
+				return 0;
+			}
+
+			@Override
+			public boolean shareCrabState()
+			{
+				return true;
+			}
+		};
+		File sharedFile = File.createTempFile("shared", ".bin");
+		sharedFile.deleteOnExit();
+		PluginHarness first = new PluginHarness(config, sharedFile);
+		PluginHarness second = new PluginHarness(config, sharedFile);
+		first.awaitExecutor();
+		second.awaitExecutor();
+		assertTrue(first.sharedCrabState.isOpen());
+		assertTrue(second.sharedCrabState.isOpen());
+
+		// 100 HP every 6 ticks drains the crab in 6 minutes, quicker than the default
+		FakeNpc crab = first.spawn("Gemstone Crab", TestNpcs.GEMSTONE_CRAB_ID, CRAB);
+		crab.setHealth(30, 30);
+		first.interact(crab);
+		first.tick();
+		int hp = 10_000;
+		for (int i = 0; i < 50; i++)
+		{
+			first.ticks(6);
+			hp -= 100;
+			first.hit(crab, 100, 1 + 29 * hp / 10_000, 30);
+		}
+		first.tick();
+		int expected = remainingSeconds(first.plugin.getDisplayState().getText());
+		assertTrue("got " + expected, Math.abs(expected - 180) <= 10);
+
+		// A second client arriving at the crab has the timer straight away
+		FakeNpc same = second.spawn("Gemstone Crab", TestNpcs.GEMSTONE_CRAB_ID, CRAB);
+		same.setHealth(1 + 29 * hp / 10_000, 30);
+		second.interact(same);
+		second.tick();
+		int actual = remainingSeconds(second.plugin.getDisplayState().getText());
+		assertTrue("expected " + expected + " got " + actual, Math.abs(actual - expected) <= 2);
+		SharedCrabState.Entry entry = new SharedCrabState.Entry();
+		assertTrue(second.sharedCrabState.read(301, CRAB, System.currentTimeMillis(), 30_000, entry));
+
+		// A copy that does not match its checksum, as a torn one would not, is rejected.
+		// The first client holds the first slot, its fraction is 16 bytes in
+		try (RandomAccessFile file = new RandomAccessFile(sharedFile, "rw"))
+		{
+			file.seek(16 + 16);
+			file.writeLong(Long.reverseBytes(Double.doubleToLongBits(0.5)));
+		}
+		assertFalse(second.sharedCrabState.read(301, CRAB, System.currentTimeMillis(), 30_000, entry));
+
+		// Leaving the crab withdraws the state
+		first.despawn(crab);
+		assertFalse(second.sharedCrabState.read(301, CRAB, System.currentTimeMillis(), 30_000, entry));
+
+		first.shutDown();
+		second.shutDown();
+	}
+
+	@Test
+	public void testCrabWorlds() throws Exception
+	{
+		PluginHarness harness = new PluginHarness(new AfkCrabHelperConfig()
+		{
+			@Override
+			public int activationDelay()
+			{
+				return 0;
+			}
+
+			@Override
+			public boolean showCrabWorlds()
+			{
+				return true;
+			}
+		});
+
+		// Half a crab on world 301, left behind alive
+		FakeNpc crab = harness.spawn("Gemstone Crab", TestNpcs.GEMSTONE_CRAB_ID, CRAB);
+		crab.setHealth(30, 30);
+		harness.interact(crab);
+		harness.tick();
+		harness.hit(crab, 5_000, 15, 30);
+		harness.tick();
+		harness.despawn(crab);
+		harness.tick();
+
+		// An almost dead crab on world 302
+		harness.client.setWorld(302);
+		FakeNpc other = harness.spawn("Gemstone Crab", TestNpcs.GEMSTONE_CRAB_ID, CRAB + 1);
+		other.setHealth(30, 30);
+		harness.interact(other);
+		harness.tick();
+		harness.hit(other, 9_500, 2, 30);
+		harness.tick();
+
+		WorldCrabCache.Snapshot ranking = harness.plugin.getWorldRanking();
+		assertEquals(2, ranking.size());
+		assertEquals(301, ranking.getWorld(0));
+		assertEquals(302, ranking.getWorld(1));
+
+		// The crab on 302 dies
+		harness.hit(other, 500, 0, 30);
+		harness.tick();
+		ranking = harness.plugin.getWorldRanking();
+		assertTrue(ranking.getDeathMillis(1) <= System.currentTimeMillis());
+		harness.shutDown();
+	}
+
+	@Test
+	public void testUncalibratedCrabWorld() throws Exception
+	{
+		PluginHarness harness = new PluginHarness(new AfkCrabHelperConfig()
+		{
+			@Override
+			public boolean showCrabWorlds()
+			{
+				return true;
+			}
+		});
+
+		// Someone else's crab on world 303, seen once and gone before any drain was learned
+		harness.client.setWorld(303);
+		FakeNpc crab = harness.spawn("Gemstone Crab", TestNpcs.GEMSTONE_CRAB_ID, CRAB);
+		harness.tick();
+		harness.hit(crab, 4_000, 18, 30);
+		harness.tick();
+		harness.despawn(crab);
+		harness.tick();
+
+		// Ranked on the default drain rather than left out
+		WorldCrabCache.Snapshot ranking = harness.plugin.getWorldRanking();
+		assertEquals(1, ranking.size());
+		assertEquals(303, ranking.getWorld(0));
+		assertTrue(ranking.getDeathMillis(0) > System.currentTimeMillis());
+		harness.shutDown();
+	}
+
+	@Test
+	public void testRecordedTrace() throws Exception
+	{
+		EventTrace trace;
+		try (InputStream in = getClass().getResourceAsStream("gemstone-session.trace"))
+		{
+			trace = EventTrace.load(in);
+		}
+
+		PluginHarness harness = new PluginHarness(config(0, 0));
+		new EventTraceSimulator(harness).run(trace, trace.getLastTick() + 10, (tick, state) ->
+		{
+			boolean atCrab = tick >= 5 && tick < 915 && (tick < 110 || tick >= 113);
+			assertEquals("visible at tick " + tick, atCrab, state.isVisible());
+			if (tick >= 910 && tick < 915)
+			{
+				assertEquals("Crab dead", state.getText());
+			}
+		});
+	}
+
+	@Test
+	public void testSwitchingBackKeepsCountedHitpoints() throws Exception
+	{
+		PluginHarness harness = new PluginHarness(new AfkCrabHelperConfig()
+		{
+			@Override
+			public DisplayMode displayMode()
+			{
+				return DisplayMode.HP_PERCENTAGE;
+			}
+		});
+		int other = CRAB + 1;
+		EventTrace trace = gemstoneCrab()
+			.spawn(0, other, TestNpcs.GEMSTONE_CRAB_ID, "Gemstone Crab")
+			.interact(1, CRAB)
+			.hit(2, CRAB, 500, 28, 30)
+			.interact(3, other)
+			// Someone else keeps hitting the first crab while the player is away
+			.hit(4, CRAB, 250, 27, 30)
+			.interact(5, CRAB);
+
+		new EventTraceSimulator(harness).run(trace, 6, (tick, state) ->
+		{
+			if (tick == 2)
+			{
+				assertEquals("95.0% HP", state.getText());
+			}
+			else if (tick >= 5)
+			{
+				assertEquals("92.5% HP", state.getText());
+			}
+		});
+	}
+
+	@Test
+	public void testRespawnPrediction() throws Exception
+	{
+		PluginHarness harness = new PluginHarness(new AfkCrabHelperConfig()
+		{
+			@Override
+			public boolean showCrabWorlds()
+			{
+				return true;
+			}
+		});
+		// The Gemstone Crab moves to another spot, under a new index. A sand crab
+		// comes back under its own index 80 ticks after it died
+		int sand = CRAB + 10;
+		EventTrace trace = new EventTrace()
+			.spawn(0, CRAB, TestNpcs.GEMSTONE_CRAB_ID, "Gemstone Crab")
+			.health(100, CRAB, 0, 30)
+			.despawn(100, CRAB)
+			.spawn(150, CRAB + 1, TestNpcs.GEMSTONE_CRAB_ID, "Gemstone Crab")
+			.spawn(0, sand, TestNpcs.SAND_CRAB_ID, "Sand Crab")
+			.hit(900, sand, 60, 0, 30)
+			.despawn(900, sand)
+			.spawn(980, sand, TestNpcs.SAND_CRAB_ID, "Sand Crab")
+			.hit(990, sand, 60, 0, 30)
+			.despawn(990, sand)
+			.health(1000, CRAB + 1, 0, 30)
+			.despawn(1000, CRAB + 1);
+
+		new EventTraceSimulator(harness).run(trace, 1010, null);
+
+		// Events are delivered while the clock still reads the previous tick
+		CrabRegistry crabs = harness.plugin.getCrabs();
+		assertEquals(999 + 50, crabs.getGemstoneRespawnTick());
+		long untilNext = harness.plugin.getNextGemstoneMillis() - System.currentTimeMillis();
+		long expected = (999 + 50 - 1010) * TickClock.TICK_MILLIS;
+		assertTrue("next crab in " + untilNext + " ms", Math.abs(untilNext - expected) <= 1000);
+
+		assertEquals(989 + 80, crabs.getRespawnTick(sand));
+		assertEquals(989 + 80, crabs.getNextRespawnTick(1010));
+		long untilRespawn = harness.plugin.getNextRespawnMillis() - System.currentTimeMillis();
+		expected = (989 + 80 - 1010) * TickClock.TICK_MILLIS;
+		assertTrue("respawn in " + untilRespawn + " ms", Math.abs(untilRespawn - expected) <= 1000);
+
+		// Forgotten once it is overdue by more than its delay, as if it spawned out of sight
+		assertEquals(-1, crabs.getNextRespawnTick(989 + 80 + 81));
+		assertEquals(-1, crabs.getRespawnTick(sand));
+		harness.shutDown();
+	}
+
+	@Test
+	public void testSessionHistory() throws Exception
+	{
+		PluginHarness harness = new PluginHarness(config(0, 0));
+		harness.client.setWorld(420);
+		EventTrace trace = gemstoneCrab()
+			.interact(1, CRAB)
+			.hit(50, CRAB, 3000, 21, 30)
+			.interact(60, -1)
+			.interact(100, CRAB)
+			.health(200, CRAB, 0, 30)
+			.despawn(210, CRAB);
+
+		new EventTraceSimulator(harness).run(trace, 220, null);
+		harness.shutDown();
+
+		List<SessionRecord> sessions = SessionHistory.read(harness.sessionHistory.getFile());
+		assertEquals(2, sessions.size());
+
+		SessionRecord first = sessions.get(0);
+		assertEquals(CrabType.GEMSTONE_CRAB, first.getCrabType());
+		assertEquals(420, first.getWorld());
+		assertEquals(300, first.getHpDrainedPermille());
+		assertTrue(first.getEndTick() > first.getStartTick());
+
+		// The second session runs from 70% down to a dead crab
+		SessionRecord second = sessions.get(1);
+		assertEquals(700, second.getHpDrainedPermille());
+		assertTrue(second.getStartTick() >= first.getEndTick());
+	}
+
+	@Test
+	public void testSessionHistoryRoundTrip() throws Exception
+	{
+		File file = File.createTempFile("sessions", ".bin");
+		file.delete();
+		file.deleteOnExit();
+		// Only flushed by hand, so it needs no executor
+		SessionHistory history = new SessionHistory(null, file);
+
+		// A long sand crab session passes 100% many times, more than a short holds
+		history.record(new SessionRecord(1_700_000_000_000L, 10, 90_010, CrabType.SAND_CRAB, 301, 40_000, 2_500_000, 89_000));
+		history.record(new SessionRecord(1_700_000_100_000L, 90_020, 91_020, CrabType.GEMSTONE_CRAB, 4_095, 1_000, 30_000, 0));
+		history.flush();
+
+		// A record cut short by a crash mid-write
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw"))
+		{
+			raf.seek(raf.length());
+			raf.write(new byte[SessionRecord.BYTES / 2]);
+		}
+
+		List<SessionRecord> sessions = SessionHistory.read(file);
+		assertEquals(2, sessions.size());
+		SessionRecord first = sessions.get(0);
+		assertEquals(1_700_000_000_000L, first.getStartMillis());
+		assertEquals(10, first.getStartTick());
+		assertEquals(90_010, first.getEndTick());
+		assertEquals(CrabType.SAND_CRAB, first.getCrabType());
+		assertEquals(301, first.getWorld());
+		assertEquals(40_000, first.getHpDrainedPermille());
+		assertEquals(2_500_000, first.getXpGained());
+		assertEquals(89_000, first.getAfkTicks());
+		assertEquals(CrabType.GEMSTONE_CRAB, sessions.get(1).getCrabType());
+		assertEquals(4_095, sessions.get(1).getWorld());
+
+		// The next flush drops the partial record so the new one stays aligned
+		history.record(new SessionRecord(1_700_000_200_000L, 91_030, 92_030, CrabType.ROCK_CRAB, 302, 500, 10_000, 900));
+		history.flush();
+		assertEquals(SessionHistory.HEADER_BYTES + 3 * SessionRecord.BYTES, file.length());
+		sessions = SessionHistory.read(file);
+		assertEquals(3, sessions.size());
+		assertEquals(CrabType.ROCK_CRAB, sessions.get(2).getCrabType());
+		assertEquals(500, sessions.get(2).getHpDrainedPermille());
+	}
+
+	@Test
+	public void testRegionGating() throws Exception
+	{
+		PluginHarness harness = new PluginHarness(config(0, 0));
+		// Varrock
+		harness.loadRegions(12853);
+		assertFalse(harness.plugin.isActive());
+
+		// Rellekka rock crabs
+		harness.loadRegions(10553, 10554);
+		assertTrue(harness.plugin.isActive());
+
+		harness.loadRegions(12853);
+		assertFalse(harness.plugin.isActive());
+
+		// A crab in the scene attaches the plugin anywhere
+		FakeNpc crab = harness.spawn("Gemstone Crab", TestNpcs.GEMSTONE_CRAB_ID, CRAB);
+		assertTrue(harness.plugin.isActive());
+		harness.despawn(crab);
+		assertFalse(harness.plugin.isActive());
+	}
+
+	@Test
+	public void testPowerSaverHidesWorldWhileOpaque() throws Exception
+	{
+		PluginHarness harness = new PluginHarness(new AfkCrabHelperConfig()
+		{
+			@Override
+			public boolean powerSaver()
+			{
+				return true;
+			}
+
+			@Override
+			public int overlayOpacity()
+			{
+				return 255;
+			}
+		});
+		EventTrace trace = gemstoneCrab()
+			.interact(1, CRAB)
+			.interact(20, -1);
+
+		new EventTraceSimulator(harness).run(trace, 30, (tick, state) ->
+		{
+			assertEquals("visible at tick " + tick, tick < 20, state.isVisible());
+			assertEquals("world hidden at tick " + tick, tick < 20, harness.plugin.isWorldHidden());
+		});
+	}
+
+	@Test
+	public void testOverlayFollowsCanvasResize() throws Exception
+	{
+		PluginHarness harness = new PluginHarness(config(0, 0));
+		FakeNpc crab = harness.spawn("Gemstone Crab", TestNpcs.GEMSTONE_CRAB_ID, CRAB);
+		harness.interact(crab);
+		harness.tick();
+
+		Graphics2D graphics = new BufferedImage(1920, 1080, BufferedImage.TYPE_INT_RGB).createGraphics();
+		Dimension size = harness.overlay.render(graphics);
+		assertEquals(new Dimension(1280, 720), size);
+
+		// The size is only read again once the client says it changed
+		harness.client.setCanvasSize(1920, 1080);
+		assertEquals(new Dimension(1280, 720), harness.overlay.render(graphics));
+		harness.resizeCanvas(1920, 1080);
+		assertEquals(new Dimension(1920, 1080), harness.overlay.render(graphics));
+		graphics.dispose();
+	}
+
+	@Test
+	public void testMetrics() throws Exception
+	{
+		PluginHarness harness = new PluginHarness(new AfkCrabHelperConfig()
+		{
+			@Override
+			public boolean showMetrics()
+			{
+				return true;
+			}
+		});
+		PluginMetrics metrics = harness.injector.getInstance(PluginMetrics.class);
+		assertTrue(metrics.isEnabled());
+
+		Graphics2D graphics = new BufferedImage(765, 503, BufferedImage.TYPE_INT_RGB).createGraphics();
+		new EventTraceSimulator(harness).run(gemstoneCrab().interact(1, CRAB), 50, (tick, state) ->
+			harness.overlay.render(graphics));
+		graphics.dispose();
+
+		assertEquals(50, metrics.snapshot(PluginMetrics.Metric.GAME_TICK).getCount());
+		assertEquals(50, metrics.snapshot(PluginMetrics.Metric.DISPLAY_TEXT).getCount());
+		assertEquals(50, metrics.snapshot(PluginMetrics.Metric.RENDER).getCount());
+		assertTrue(metrics.snapshot(PluginMetrics.Metric.RENDER).getMax() > 0);
+
+		harness.shutDown();
+		assertFalse(metrics.isEnabled());
+	}
+
+	@Test
+	public void testLongSession() throws Exception
+	{
+		// Six hours of back to back crabs, each lasting 1000 ticks with a 60 tick respawn
+		int hours = 6;
+		int lastTick = hours * 6000;
+		int cycle = 1060;
+		EventTrace trace = new EventTrace();
+		int crabs = 0;
+		for (int start = 1; start + cycle <= lastTick; start += cycle)
+		{
+			int index = CRAB + crabs++;
+			trace.spawn(start, index, TestNpcs.GEMSTONE_CRAB_ID, "Gemstone Crab")
+				.interact(start, index)
+				.linearDrain(start, index, 1000, 30)
+				.despawn(start + 1005, index);
+		}
+
+		int[] deaths = new int[1];
+		boolean[] wasDead = new boolean[1];
+		PluginHarness harness = new PluginHarness(config(0, 0));
+		SimulationReport report = new EventTraceSimulator(harness).run(trace, lastTick, (tick, state) ->
+		{
+			boolean dead = "Crab dead".equals(state.getText());
+			if (dead && !wasDead[0])
+			{
+				deaths[0]++;
+			}
+			wasDead[0] = dead;
+		});
+
+		assertEquals("ticks in " + report, lastTick, report.getTicks());
+		assertEquals("crab deaths in " + report, crabs, deaths[0]);
+		assertFalse("overlay visible after " + report, harness.plugin.getDisplayState().isVisible());
+	}
+}
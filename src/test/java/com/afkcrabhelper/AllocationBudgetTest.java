@@ -0,0 +1,185 @@
+package com.afkcrabhelper;
+
+import static org.junit.Assert.assertTrue;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import net.runelite.api.Hitsplat;
+import net.runelite.api.HitsplatID;
+import net.runelite.api.events.HitsplatApplied;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Guards the steady state garbage of the render and tick paths. Each path runs long
+ * enough for the JIT to settle, then the bytes the thread allocates are divided by
+ * the number of calls and checked against a budget. Lower a budget when a change
+ * removes an allocation so it cannot quietly come back.
+ */
+public class AllocationBudgetTest
+{
+	// Nothing, with slack for the odd object the JDK allocates
+	private static final double RENDER_BUDGET_BYTES = 8;
+	// Java2D's software loops allocate a few KB for every translucent fill, none of
+	// it from the plugin. Measured at about 5.4 KB for a 765x503 canvas
+	private static final double TRANSLUCENT_RENDER_BUDGET_BYTES = 6 * 1024;
+	// Text comes from lookup tables, so only the combined HP and countdown text
+	// built when either part changes, which is about every tick on a draining crab.
+	// Measured at about 150 B
+	private static final double TICK_BUDGET_BYTES = 256;
+
+	private static final int WARMUP = 20_000;
+	private static final int MEASURED = 20_000;
+
+	// A crab drained like a busy Gemstone Crab, so the HP and countdown text change
+	// about every tick. It is replaced before it dies
+	private static final int DAMAGE_PER_TICK = 15;
+	private static final int TICKS_PER_CRAB = 600;
+
+	private com.sun.management.ThreadMXBean threads;
+	private PluginHarness harness;
+	private Graphics2D graphics;
+	private int nextCrabIndex = 2;
+
+	@Before
+	public void setUp() throws Exception
+	{
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		Assume.assumeTrue("Allocation counting is not supported by this JVM",
+			bean instanceof com.sun.management.ThreadMXBean
+				&& ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported());
+		threads = (com.sun.management.ThreadMXBean) bean;
+		threads.setThreadAllocatedMemoryEnabled(true);
+		graphics = new BufferedImage(765, 503, BufferedImage.TYPE_INT_RGB).createGraphics();
+	}
+
+	private void startPlugin(int opacity) throws Exception
+	{
+		harness = new PluginHarness(new AfkCrabHelperConfig()
+		{
+			@Override
+			public DisplayMode displayMode()
+			{
+				return DisplayMode.BOTH;
+			}
+
+			@Override
+			public int overlayOpacity()
+			{
+				return opacity;
+			}
+		});
+		FakeNpc crab = harness.spawn("Gemstone Crab", TestNpcs.GEMSTONE_CRAB_ID, 1);
+		crab.setHealth(20, 30);
+		harness.interact(crab);
+		harness.tick();
+	}
+
+	@After
+	public void tearDown() throws Exception
+	{
+		if (graphics != null)
+		{
+			graphics.dispose();
+		}
+		if (harness != null)
+		{
+			harness.shutDown();
+		}
+	}
+
+	@Test
+	public void testRenderAllocation() throws Exception
+	{
+		// An opaque fill, which Java2D draws without allocating
+		startPlugin(255);
+		assertWithinBudget("render", renderFrames(), RENDER_BUDGET_BYTES);
+	}
+
+	@Test
+	public void testTranslucentRenderAllocation() throws Exception
+	{
+		// The default opacity
+		startPlugin(200);
+		assertWithinBudget("translucent render", renderFrames(), TRANSLUCENT_RENDER_BUDGET_BYTES);
+	}
+
+	@Test
+	public void testGameTickAllocation() throws Exception
+	{
+		startPlugin(255);
+		drainCrabs(WARMUP);
+		assertWithinBudget("onGameTick", drainCrabs(MEASURED), TICK_BUDGET_BYTES);
+	}
+
+	/**
+	 * Renders the overlay until the JIT settles, then renders it again.
+	 *
+	 * @return bytes allocated by the second run
+	 */
+	private long renderFrames()
+	{
+		for (int i = 0; i < WARMUP; i++)
+		{
+			harness.overlay.render(graphics);
+		}
+
+		long start = allocatedBytes();
+		for (int i = 0; i < MEASURED; i++)
+		{
+			harness.overlay.render(graphics);
+		}
+		return allocatedBytes() - start;
+	}
+
+	/**
+	 * Ticks while hitting a crab every tick, swapping in a fresh crab as needed.
+	 * Only the ticks and hitsplats are counted, not the spawns and despawns.
+	 *
+	 * @return bytes allocated
+	 */
+	private long drainCrabs(int ticks)
+	{
+		long bytes = 0;
+		while (ticks > 0)
+		{
+			FakeNpc crab = harness.spawn("Gemstone Crab", TestNpcs.GEMSTONE_CRAB_ID, nextCrabIndex++);
+			crab.setHealth(30, 30);
+			harness.interact(crab);
+			HitsplatApplied hit = new HitsplatApplied();
+			hit.setActor(crab.get());
+			hit.setHitsplat(new Hitsplat(HitsplatID.DAMAGE_OTHER, DAMAGE_PER_TICK, 0));
+
+			int count = Math.min(ticks, TICKS_PER_CRAB);
+			int hp = AfkCrabHelperPlugin.GEMSTONE_CRAB_HITPOINTS;
+			long start = allocatedBytes();
+			for (int i = 0; i < count; i++)
+			{
+				hp -= DAMAGE_PER_TICK;
+				crab.setHealth(1 + 29 * hp / AfkCrabHelperPlugin.GEMSTONE_CRAB_HITPOINTS, 30);
+				harness.plugin.onHitsplatApplied(hit);
+				harness.tick();
+			}
+			bytes += allocatedBytes() - start;
+
+			harness.despawn(crab);
+			ticks -= count;
+		}
+		return bytes;
+	}
+
+	private long allocatedBytes()
+	{
+		return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	private static void assertWithinBudget(String path, long bytes, double budget)
+	{
+		double perCall = (double) bytes / MEASURED;
+		assertTrue(String.format("%s allocates %.1f B per call, over the %.0f B budget", path, perCall, budget),
+			perCall <= budget);
+	}
+}
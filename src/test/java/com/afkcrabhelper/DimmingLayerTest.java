@@ -0,0 +1,56 @@
+package com.afkcrabhelper;
+
+import static org.junit.Assert.assertEquals;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import org.junit.Test;
+
+public class DimmingLayerTest
+{
+	private static final int WIDTH = 64;
+	private static final int HEIGHT = 48;
+
+	@Test
+	public void testPathsMatchPlainFill()
+	{
+		for (int alpha : new int[]{0, 1, 128, 200, 254, 255})
+		{
+			Color color = new Color(20, 40, 60, alpha);
+			DimmingLayer.Path expectedPath = alpha == 0 ? DimmingLayer.Path.NONE
+				: alpha == 255 ? DimmingLayer.Path.OPAQUE_FILL : DimmingLayer.Path.TRANSLUCENT_FILL;
+
+			BufferedImage expected = background();
+			Graphics2D g = expected.createGraphics();
+			g.setColor(color);
+			g.fillRect(0, 0, WIDTH, HEIGHT);
+			g.dispose();
+
+			BufferedImage actual = background();
+			Graphics2D graphics = actual.createGraphics();
+			assertEquals(expectedPath, DimmingLayer.paint(graphics, color, WIDTH, HEIGHT));
+			graphics.dispose();
+
+			for (int y = 0; y < HEIGHT; y++)
+			{
+				for (int x = 0; x < WIDTH; x++)
+				{
+					assertEquals("alpha " + alpha + " at " + x + "," + y, expected.getRGB(x, y), actual.getRGB(x, y));
+				}
+			}
+		}
+	}
+
+	private static BufferedImage background()
+	{
+		BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+		for (int y = 0; y < HEIGHT; y++)
+		{
+			for (int x = 0; x < WIDTH; x++)
+			{
+				image.setRGB(x, y, (x * 4) << 16 | (y * 5) << 8 | 0x80);
+			}
+		}
+		return image;
+	}
+}
@@ -0,0 +1,204 @@
+package com.afkcrabhelper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Ordered list of client events to replay against the plugin, either built in code
+ * or parsed from a recorded trace. Events at a tick are applied before that tick's
+ * GameTick, as the client does.
+ *
+ * The text format is one event per line, '#' starting a comment:
+ * <pre>
+ * 0 spawn 1 14779 Gemstone Crab
+ * 0 health 1 30 30
+ * 1 interact 1
+ * 2 hit 1 25 30 30
+ * 600 interact -
+ * 900 despawn 1
+ * </pre>
+ */
+class EventTrace
+{
+	enum Kind
+	{
+		SPAWN,
+		DESPAWN,
+		INTERACT,
+		HEALTH,
+		HIT
+	}
+
+	static final class Event
+	{
+		final int tick;
+		final Kind kind;
+		final int npcIndex;
+		final int npcId;
+		final String name;
+		final int healthRatio;
+		final int healthScale;
+		final int damage;
+
+		private Event(int tick, Kind kind, int npcIndex, int npcId, String name, int healthRatio, int healthScale, int damage)
+		{
+			this.tick = tick;
+			this.kind = kind;
+			this.npcIndex = npcIndex;
+			this.npcId = npcId;
+			this.name = name;
+			this.healthRatio = healthRatio;
+			this.healthScale = healthScale;
+			this.damage = damage;
+		}
+	}
+
+	private final List<Event> events = new ArrayList<>();
+	private boolean sorted = true;
+
+	EventTrace spawn(int tick, int npcIndex, int npcId, String name)
+	{
+		return add(new Event(tick, Kind.SPAWN, npcIndex, npcId, name, -1, -1, 0));
+	}
+
+	EventTrace despawn(int tick, int npcIndex)
+	{
+		return add(new Event(tick, Kind.DESPAWN, npcIndex, -1, null, -1, -1, 0));
+	}
+
+	/**
+	 * Makes the local player interact with the NPC at the index, or stop interacting if it is -1.
+	 */
+	EventTrace interact(int tick, int npcIndex)
+	{
+		return add(new Event(tick, Kind.INTERACT, npcIndex, -1, null, -1, -1, 0));
+	}
+
+	EventTrace health(int tick, int npcIndex, int healthRatio, int healthScale)
+	{
+		return add(new Event(tick, Kind.HEALTH, npcIndex, -1, null, healthRatio, healthScale, 0));
+	}
+
+	/**
+	 * A damage hitsplat on the NPC along with the health bar value sent with it.
+	 */
+	EventTrace hit(int tick, int npcIndex, int damage, int healthRatio, int healthScale)
+	{
+		return add(new Event(tick, Kind.HIT, npcIndex, -1, null, healthRatio, healthScale, damage));
+	}
+
+	/**
+	 * Adds health bar updates for an NPC draining linearly from full to zero,
+	 * one event per bar segment like the client sends them.
+	 */
+	EventTrace linearDrain(int startTick, int npcIndex, int ticksToDie, int healthScale)
+	{
+		health(startTick, npcIndex, healthScale, healthScale);
+		for (int ratio = healthScale - 1; ratio >= 0; ratio--)
+		{
+			int tick = startTick + (int) Math.ceil((double) (healthScale - ratio) * ticksToDie / healthScale);
+			health(tick, npcIndex, ratio, healthScale);
+		}
+		return this;
+	}
+
+	List<Event> getEvents()
+	{
+		if (!sorted)
+		{
+			// Stable, so events at the same tick keep their order
+			Collections.sort(events, Comparator.comparingInt(e -> e.tick));
+			sorted = true;
+		}
+		return events;
+	}
+
+	int getLastTick()
+	{
+		List<Event> sortedEvents = getEvents();
+		return sortedEvents.isEmpty() ? 0 : sortedEvents.get(sortedEvents.size() - 1).tick;
+	}
+
+	private EventTrace add(Event event)
+	{
+		if (!events.isEmpty() && events.get(events.size() - 1).tick > event.tick)
+		{
+			sorted = false;
+		}
+		events.add(event);
+		return this;
+	}
+
+	static EventTrace parse(String text) throws IOException
+	{
+		return parse(new BufferedReader(new StringReader(text)));
+	}
+
+	static EventTrace load(InputStream in) throws IOException
+	{
+		return parse(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)));
+	}
+
+	private static EventTrace parse(BufferedReader reader) throws IOException
+	{
+		EventTrace trace = new EventTrace();
+		String line;
+		int lineNumber = 0;
+		while ((line = reader.readLine()) != null)
+		{
+			lineNumber++;
+			int comment = line.indexOf('#');
+			if (comment >= 0)
+			{
+				line = line.substring(0, comment);
+			}
+			line = line.trim();
+			if (line.isEmpty())
+			{
+				continue;
+			}
+
+			String[] parts = line.split("\\s+", 5);
+			try
+			{
+				int tick = Integer.parseInt(parts[0]);
+				switch (parts[1])
+				{
+					case "spawn":
+						trace.spawn(tick, Integer.parseInt(parts[2]), Integer.parseInt(parts[3]), parts.length > 4 ? parts[4] : null);
+						break;
+					case "despawn":
+						trace.despawn(tick, Integer.parseInt(parts[2]));
+						break;
+					case "interact":
+						trace.interact(tick, "-".equals(parts[2]) ? -1 : Integer.parseInt(parts[2]));
+						break;
+					case "health":
+						trace.health(tick, Integer.parseInt(parts[2]), Integer.parseInt(parts[3]), Integer.parseInt(parts[4]));
+						break;
+					case "hit":
+					{
+						String[] hit = parts[4].split("\\s+");
+						trace.hit(tick, Integer.parseInt(parts[2]), Integer.parseInt(parts[3]), Integer.parseInt(hit[0]), Integer.parseInt(hit[1]));
+						break;
+					}
+					default:
+						throw new IOException("Unknown event '" + parts[1] + "' on line " + lineNumber);
+				}
+			}
+			catch (NumberFormatException | ArrayIndexOutOfBoundsException e)
+			{
+				throw new IOException("Malformed event on line " + lineNumber + ": " + line, e);
+			}
+		}
+		return trace;
+	}
+}
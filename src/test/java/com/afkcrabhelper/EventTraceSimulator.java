@@ -0,0 +1,124 @@
+package com.afkcrabhelper;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Replays an {@link EventTrace} against a {@link PluginHarness} with no live client,
+ * reporting the display state after every tick and the plugin's CPU time and
+ * allocations over the run.
+ */
+class EventTraceSimulator
+{
+	interface TickListener
+	{
+		void onTick(int tick, DisplayState state);
+	}
+
+	private final PluginHarness harness;
+	private final Map<Integer, FakeNpc> npcs = new HashMap<>();
+
+	EventTraceSimulator(PluginHarness harness)
+	{
+		this.harness = harness;
+	}
+
+	FakeNpc getNpc(int npcIndex)
+	{
+		return npcs.get(npcIndex);
+	}
+
+	/**
+	 * Runs the trace up to and including the given tick.
+	 */
+	SimulationReport run(EventTrace trace, int lastTick, TickListener listener)
+	{
+		List<EventTrace.Event> events = trace.getEvents();
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		long threadId = Thread.currentThread().getId();
+
+		int next = 0;
+		int ticks = 0;
+		long cpuNanos = 0;
+		long allocatedBytes = 0;
+		long maxTickNanos = 0;
+
+		for (int tick = harness.clock.getTick() + 1; tick <= lastTick; tick++)
+		{
+			long cpuStart = threads.getCurrentThreadCpuTime();
+			long allocStart = allocatedBytes(threads, threadId);
+			long start = System.nanoTime();
+
+			while (next < events.size() && events.get(next).tick <= tick)
+			{
+				apply(events.get(next++));
+			}
+			harness.tick();
+
+			long elapsed = System.nanoTime() - start;
+			allocatedBytes += allocatedBytes(threads, threadId) - allocStart;
+			cpuNanos += threads.getCurrentThreadCpuTime() - cpuStart;
+			maxTickNanos = Math.max(maxTickNanos, elapsed);
+			ticks++;
+
+			if (listener != null)
+			{
+				listener.onTick(tick, harness.plugin.getDisplayState());
+			}
+		}
+
+		return new SimulationReport(ticks, cpuNanos, allocatedBytes, maxTickNanos);
+	}
+
+	private void apply(EventTrace.Event event)
+	{
+		switch (event.kind)
+		{
+			case SPAWN:
+				npcs.put(event.npcIndex, harness.spawn(event.name, event.npcId, event.npcIndex));
+				break;
+			case DESPAWN:
+			{
+				FakeNpc npc = npcs.remove(event.npcIndex);
+				if (npc != null)
+				{
+					harness.despawn(npc);
+				}
+				break;
+			}
+			case INTERACT:
+				harness.interact(event.npcIndex < 0 ? null : npcs.get(event.npcIndex));
+				break;
+			case HEALTH:
+			{
+				FakeNpc npc = npcs.get(event.npcIndex);
+				if (npc != null)
+				{
+					harness.hit(npc, 0, event.healthRatio, event.healthScale);
+				}
+				break;
+			}
+			case HIT:
+			{
+				FakeNpc npc = npcs.get(event.npcIndex);
+				if (npc != null)
+				{
+					harness.hit(npc, event.damage, event.healthRatio, event.healthScale);
+				}
+				break;
+			}
+		}
+	}
+
+	private static long allocatedBytes(ThreadMXBean threads, long threadId)
+	{
+		if (threads instanceof com.sun.management.ThreadMXBean)
+		{
+			return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(threadId);
+		}
+		return 0;
+	}
+}
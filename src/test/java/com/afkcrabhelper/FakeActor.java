@@ -0,0 +1,90 @@
+package com.afkcrabhelper;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import net.runelite.api.Actor;
+
+/**
+ * Shared state of {@link FakeNpc} and {@link FakePlayer}. Values are boxed when they
+ * are set rather than when they are read, so the plugin's reads do not allocate.
+ */
+abstract class FakeActor implements InvocationHandler
+{
+	private String name;
+	private Actor interacting;
+	private Integer healthRatio = -1;
+	private Integer healthScale = -1;
+	private Integer combatLevel = 0;
+
+	FakeActor(String name)
+	{
+		this.name = name;
+	}
+
+	void setName(String name)
+	{
+		this.name = name;
+	}
+
+	void setInteracting(Actor interacting)
+	{
+		this.interacting = interacting;
+	}
+
+	Actor getInteracting()
+	{
+		return interacting;
+	}
+
+	void setHealth(int healthRatio, int healthScale)
+	{
+		this.healthRatio = healthRatio;
+		this.healthScale = healthScale;
+	}
+
+	int getHealthRatio()
+	{
+		return healthRatio;
+	}
+
+	int getHealthScale()
+	{
+		return healthScale;
+	}
+
+	void setCombatLevel(int combatLevel)
+	{
+		this.combatLevel = combatLevel;
+	}
+
+	@Override
+	public Object invoke(Object proxy, Method method, Object[] args)
+	{
+		switch (method.getName())
+		{
+			case "getName":
+				return name;
+			case "getInteracting":
+				return interacting;
+			case "getHealthRatio":
+				return healthRatio;
+			case "getHealthScale":
+				return healthScale;
+			case "getCombatLevel":
+				return combatLevel;
+			case "equals":
+				return proxy == args[0];
+			case "hashCode":
+				return System.identityHashCode(proxy);
+			case "toString":
+				return getClass().getSimpleName() + "[" + name + "]";
+			default:
+				return invokeOther(method);
+		}
+	}
+
+	Object invokeOther(Method method)
+	{
+		return Fakes.defaultValue(method.getReturnType());
+	}
+}
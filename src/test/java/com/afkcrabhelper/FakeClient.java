@@ -0,0 +1,131 @@
+package com.afkcrabhelper;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import net.runelite.api.Client;
+import net.runelite.api.GameState;
+import net.runelite.api.NPC;
+import net.runelite.api.Player;
+
+/**
+ * Proxy-backed {@link Client} exposing only the state the plugin reads.
+ */
+class FakeClient implements InvocationHandler
+{
+	private final Client client = Fakes.proxy(Client.class, this);
+	private final List<NPC> npcs = new ArrayList<>();
+	private final List<Player> players = new ArrayList<>();
+	private Integer tickCount = 0;
+	private Integer canvasWidth = 1280;
+	private Integer canvasHeight = 720;
+	private Integer world = 301;
+	private GameState gameState = GameState.LOGGED_IN;
+	private Player localPlayer;
+	private int[] mapRegions = new int[0];
+	private final List<Integer> soundEffects = new ArrayList<>();
+
+	Client get()
+	{
+		return client;
+	}
+
+	List<NPC> getNpcList()
+	{
+		return npcs;
+	}
+
+	/**
+	 * Players in the scene, including the local player once set.
+	 */
+	List<Player> getPlayerList()
+	{
+		return players;
+	}
+
+	void setTickCount(int tickCount)
+	{
+		this.tickCount = tickCount;
+	}
+
+	int getTickCount()
+	{
+		return tickCount;
+	}
+
+	void setCanvasSize(int width, int height)
+	{
+		canvasWidth = width;
+		canvasHeight = height;
+	}
+
+	void setWorld(int world)
+	{
+		this.world = world;
+	}
+
+	void setGameState(GameState gameState)
+	{
+		this.gameState = gameState;
+	}
+
+	void setLocalPlayer(Player localPlayer)
+	{
+		players.remove(this.localPlayer);
+		this.localPlayer = localPlayer;
+		players.add(localPlayer);
+	}
+
+	void setMapRegions(int... mapRegions)
+	{
+		this.mapRegions = mapRegions;
+	}
+
+	/**
+	 * Ids of the sound effects played so far.
+	 */
+	List<Integer> getSoundEffects()
+	{
+		return soundEffects;
+	}
+
+	@Override
+	public Object invoke(Object proxy, Method method, Object[] args)
+	{
+		switch (method.getName())
+		{
+			case "getTickCount":
+				return tickCount;
+			case "getCanvasWidth":
+				return canvasWidth;
+			case "getCanvasHeight":
+				return canvasHeight;
+			case "getWorld":
+				return world;
+			case "getGameState":
+				return gameState;
+			case "getLocalPlayer":
+				return localPlayer;
+			case "getNpcs":
+				return npcs;
+			case "getPlayers":
+				return players;
+			case "getMapRegions":
+				return mapRegions;
+			case "isClientThread":
+				return Boolean.TRUE;
+			case "playSoundEffect":
+				soundEffects.add((Integer) args[0]);
+				return null;
+			case "equals":
+				return proxy == args[0];
+			case "hashCode":
+				return System.identityHashCode(proxy);
+			case "toString":
+				return "FakeClient";
+			default:
+				return Fakes.defaultValue(method.getReturnType());
+		}
+	}
+}
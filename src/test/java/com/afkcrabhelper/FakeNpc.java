@@ -0,0 +1,37 @@
+package com.afkcrabhelper;
+
+import java.lang.reflect.Method;
+import net.runelite.api.NPC;
+
+class FakeNpc extends FakeActor
+{
+	private final NPC npc = Fakes.proxy(NPC.class, this);
+	private final Integer id;
+	private final Integer index;
+
+	FakeNpc(String name, int id, int index)
+	{
+		super(name);
+		this.id = id;
+		this.index = index;
+	}
+
+	NPC get()
+	{
+		return npc;
+	}
+
+	@Override
+	Object invokeOther(Method method)
+	{
+		switch (method.getName())
+		{
+			case "getId":
+				return id;
+			case "getIndex":
+				return index;
+			default:
+				return super.invokeOther(method);
+		}
+	}
+}
@@ -0,0 +1,18 @@
+package com.afkcrabhelper;
+
+import net.runelite.api.Player;
+
+class FakePlayer extends FakeActor
+{
+	private final Player player = Fakes.proxy(Player.class, this);
+
+	FakePlayer(String name)
+	{
+		super(name);
+	}
+
+	Player get()
+	{
+		return player;
+	}
+}
@@ -0,0 +1,38 @@
+package com.afkcrabhelper;
+
+/**
+ * {@link TickClock} advanced explicitly by the test, so timing is deterministic.
+ */
+class FakeTickClock implements TickClock
+{
+	private int tick;
+	private int millisIntoTick;
+
+	void setTick(int tick)
+	{
+		this.tick = tick;
+		millisIntoTick = 0;
+	}
+
+	void setMillisIntoTick(int millisIntoTick)
+	{
+		this.millisIntoTick = millisIntoTick;
+	}
+
+	@Override
+	public void onGameTick()
+	{
+	}
+
+	@Override
+	public int getTick()
+	{
+		return tick;
+	}
+
+	@Override
+	public int getMillisIntoTick()
+	{
+		return millisIntoTick;
+	}
+}
@@ -0,0 +1,68 @@
+package com.afkcrabhelper;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+
+/**
+ * Helpers for the proxy-backed fakes used to drive the plugin without a game client.
+ */
+final class Fakes
+{
+	private static final Integer ZERO = 0;
+	private static final Long ZERO_LONG = 0L;
+	private static final Double ZERO_DOUBLE = 0.0;
+	private static final Float ZERO_FLOAT = 0.0f;
+	private static final Short ZERO_SHORT = 0;
+	private static final Byte ZERO_BYTE = 0;
+	private static final Character ZERO_CHAR = 0;
+
+	private Fakes()
+	{
+	}
+
+	static <T> T proxy(Class<T> type, InvocationHandler handler)
+	{
+		return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, handler));
+	}
+
+	/**
+	 * Value returned for methods a fake does not implement. Primitives get a shared
+	 * boxed zero so unimplemented calls never allocate.
+	 */
+	static Object defaultValue(Class<?> type)
+	{
+		if (!type.isPrimitive() || type == void.class)
+		{
+			return null;
+		}
+		if (type == boolean.class)
+		{
+			return Boolean.FALSE;
+		}
+		if (type == int.class)
+		{
+			return ZERO;
+		}
+		if (type == long.class)
+		{
+			return ZERO_LONG;
+		}
+		if (type == double.class)
+		{
+			return ZERO_DOUBLE;
+		}
+		if (type == float.class)
+		{
+			return ZERO_FLOAT;
+		}
+		if (type == short.class)
+		{
+			return ZERO_SHORT;
+		}
+		if (type == byte.class)
+		{
+			return ZERO_BYTE;
+		}
+		return ZERO_CHAR;
+	}
+}
@@ -0,0 +1,42 @@
+package com.afkcrabhelper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class LatencyHistogramTest
+{
+	@Test
+	public void testBucketsCoverTheirLimits()
+	{
+		for (long value = 0; value < 1 << 20; value++)
+		{
+			int bucket = LatencyHistogram.bucket(value);
+			assertTrue("value " + value, value <= LatencyHistogram.bucketLimit(bucket));
+			assertTrue("value " + value, bucket == 0 || value > LatencyHistogram.bucketLimit(bucket - 1));
+		}
+		assertEquals(LatencyHistogram.bucket(Long.MAX_VALUE), LatencyHistogram.bucket(Long.MAX_VALUE - 1));
+	}
+
+	@Test
+	public void testPercentiles()
+	{
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (int i = 1; i <= 1000; i++)
+		{
+			histogram.record(i * 1000L);
+		}
+
+		LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+		assertEquals(1000, snapshot.getCount());
+		assertEquals(1_000_000, snapshot.getMax());
+		// Buckets are a quarter of a power of two wide
+		assertTrue(Math.abs(snapshot.getPercentile(0.5) - 500_000) <= 500_000 / 4);
+		assertTrue(Math.abs(snapshot.getPercentile(0.99) - 990_000) <= 990_000 / 4);
+		assertEquals(1_000_000, snapshot.getPercentile(1));
+
+		histogram.reset();
+		assertEquals(0, histogram.snapshot().getCount());
+		assertEquals(0, histogram.snapshot().getPercentile(0.5));
+	}
+}
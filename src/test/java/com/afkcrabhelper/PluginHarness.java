@@ -0,0 +1,204 @@
+package com.afkcrabhelper;
+
+import static org.mockito.Mockito.mock;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.Scopes;
+import java.io.File;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import net.runelite.api.Client;
+import net.runelite.api.GameState;
+import net.runelite.api.Hitsplat;
+import net.runelite.api.HitsplatID;
+import net.runelite.api.NPC;
+import net.runelite.api.Skill;
+import net.runelite.api.events.CanvasSizeChanged;
+import net.runelite.api.events.GameStateChanged;
+import net.runelite.api.events.GameTick;
+import net.runelite.api.events.HitsplatApplied;
+import net.runelite.api.events.InteractingChanged;
+import net.runelite.api.events.NpcDespawned;
+import net.runelite.api.events.NpcSpawned;
+import net.runelite.api.events.StatChanged;
+import net.runelite.client.Notifier;
+import net.runelite.client.callback.ClientThread;
+import net.runelite.client.callback.Hooks;
+import net.runelite.client.config.ConfigManager;
+import net.runelite.client.ui.overlay.OverlayManager;
+
+/**
+ * Plugin and overlay wired to fake client state, with helpers to post the events
+ * the plugin subscribes to.
+ */
+class PluginHarness
+{
+	// GameTick carries no data, so one instance is reused like the client does
+	private static final GameTick GAME_TICK = new GameTick();
+
+	final FakeClient client = new FakeClient();
+	final FakePlayer player = new FakePlayer("Player");
+	final FakeTickClock clock = new FakeTickClock();
+	final AfkCrabHelperPlugin plugin = new AfkCrabHelperPlugin();
+	// The tests are the client thread, so invoked work runs straight away. invokeLater
+	// still does nothing, so registerScene does not run at startup
+	private final ClientThread clientThread = new ClientThread()
+	{
+		@Override
+		public void invoke(Runnable runnable)
+		{
+			runnable.run();
+		}
+	};
+	final AfkCrabHelperOverlay overlay;
+	final Injector injector;
+	final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable ->
+	{
+		Thread thread = new Thread(runnable, "harness executor");
+		thread.setDaemon(true);
+		return thread;
+	});
+	final SessionHistory sessionHistory;
+	final SharedCrabState sharedCrabState;
+
+	PluginHarness(AfkCrabHelperConfig config) throws Exception
+	{
+		this(config, null);
+	}
+
+	/**
+	 * @param sharedStateFile shared crab state file, or null for one of its own
+	 */
+	PluginHarness(AfkCrabHelperConfig config, File sharedStateFile) throws Exception
+	{
+		client.setLocalPlayer(player.get());
+		File historyFile = File.createTempFile("sessions", ".bin");
+		historyFile.delete();
+		historyFile.deleteOnExit();
+		sessionHistory = new SessionHistory(executor, historyFile);
+		if (sharedStateFile == null)
+		{
+			sharedStateFile = File.createTempFile("shared", ".bin");
+			sharedStateFile.deleteOnExit();
+		}
+		sharedCrabState = new SharedCrabState(executor, sharedStateFile);
+
+		injector = Guice.createInjector(binder ->
+		{
+			binder.bind(Client.class).toInstance(client.get());
+			binder.bind(AfkCrabHelperConfig.class).toInstance(config);
+			binder.bind(TickClock.class).toInstance(clock);
+			binder.bind(OverlayManager.class).toInstance(mock(OverlayManager.class));
+			binder.bind(ClientThread.class).toInstance(clientThread);
+			binder.bind(Hooks.class).toInstance(mock(Hooks.class));
+			binder.bind(Notifier.class).toInstance(mock(Notifier.class));
+			binder.bind(ScheduledExecutorService.class).toInstance(executor);
+			binder.bind(ConfigManager.class).toInstance(mock(ConfigManager.class));
+			binder.bind(SessionHistory.class).toInstance(sessionHistory);
+			binder.bind(SharedCrabState.class).toInstance(sharedCrabState);
+			binder.bind(AfkCrabHelperPlugin.class).toInstance(plugin);
+			// The plugin and the tests must share the overlay
+			binder.bind(AfkCrabHelperOverlay.class).in(Scopes.SINGLETON);
+		});
+		overlay = injector.getInstance(AfkCrabHelperOverlay.class);
+		plugin.startUp();
+	}
+
+	/**
+	 * Loads a new set of map regions, as the client does when the player moves far enough.
+	 */
+	void loadRegions(int... regions)
+	{
+		client.setMapRegions(regions);
+		client.setGameState(GameState.LOGGED_IN);
+		GameStateChanged event = new GameStateChanged();
+		event.setGameState(GameState.LOGGED_IN);
+		plugin.onGameStateChanged(event);
+	}
+
+	void resizeCanvas(int width, int height)
+	{
+		client.setCanvasSize(width, height);
+		plugin.onCanvasSizeChanged(new CanvasSizeChanged());
+	}
+
+	FakeNpc spawn(String name, int npcId, int index)
+	{
+		FakeNpc npc = new FakeNpc(name, npcId, index);
+		client.getNpcList().add(npc.get());
+		plugin.onNpcSpawned(new NpcSpawned(npc.get()));
+		return npc;
+	}
+
+	void despawn(FakeNpc npc)
+	{
+		client.getNpcList().remove(npc.get());
+		// The client drops the player's target along with the NPC
+		if (player.getInteracting() == npc.get())
+		{
+			player.setInteracting(null);
+		}
+		plugin.onNpcDespawned(new NpcDespawned(npc.get()));
+	}
+
+	/**
+	 * Updates the NPC's health bar along with the hitsplat the client shows for it.
+	 */
+	void hit(FakeNpc npc, int damage, int healthRatio, int healthScale)
+	{
+		npc.setHealth(healthRatio, healthScale);
+		HitsplatApplied event = new HitsplatApplied();
+		event.setActor(npc.get());
+		event.setHitsplat(new Hitsplat(HitsplatID.DAMAGE_OTHER, damage, 0));
+		plugin.onHitsplatApplied(event);
+	}
+
+	void setXp(Skill skill, int xp)
+	{
+		plugin.onStatChanged(new StatChanged(skill, xp, 1, 1));
+	}
+
+	void interact(FakeNpc npc)
+	{
+		NPC target = npc == null ? null : npc.get();
+		player.setInteracting(target);
+		plugin.onInteractingChanged(new InteractingChanged(player.get(), target));
+	}
+
+	void tick()
+	{
+		int tick = clock.getTick() + 1;
+		clock.setTick(tick);
+		client.setTickCount(tick);
+		plugin.onGameTick(GAME_TICK);
+	}
+
+	void ticks(int count)
+	{
+		for (int i = 0; i < count; i++)
+		{
+			tick();
+		}
+	}
+
+	/**
+	 * Waits for everything queued on the executor so far.
+	 */
+	void awaitExecutor() throws Exception
+	{
+		executor.submit(() ->
+		{
+		}).get();
+	}
+
+	/**
+	 * Shuts the plugin down and waits for the executor to finish writing.
+	 */
+	void shutDown() throws Exception
+	{
+		plugin.shutDown();
+		executor.shutdown();
+		executor.awaitTermination(10, TimeUnit.SECONDS);
+	}
+}
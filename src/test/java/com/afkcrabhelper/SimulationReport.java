@@ -0,0 +1,53 @@
+package com.afkcrabhelper;
+
+/**
+ * Cost of a simulated run. CPU time and allocations cover event delivery and the
+ * plugin's tick handling, not the test's own assertions.
+ */
+final class SimulationReport
+{
+	private final int ticks;
+	private final long cpuNanos;
+	private final long allocatedBytes;
+	private final long maxTickNanos;
+
+	SimulationReport(int ticks, long cpuNanos, long allocatedBytes, long maxTickNanos)
+	{
+		this.ticks = ticks;
+		this.cpuNanos = cpuNanos;
+		this.allocatedBytes = allocatedBytes;
+		this.maxTickNanos = maxTickNanos;
+	}
+
+	int getTicks()
+	{
+		return ticks;
+	}
+
+	long getCpuNanos()
+	{
+		return cpuNanos;
+	}
+
+	long getAllocatedBytes()
+	{
+		return allocatedBytes;
+	}
+
+	double getCpuNanosPerTick()
+	{
+		return ticks == 0 ? 0 : (double) cpuNanos / ticks;
+	}
+
+	double getAllocatedBytesPerTick()
+	{
+		return ticks == 0 ? 0 : (double) allocatedBytes / ticks;
+	}
+
+	@Override
+	public String toString()
+	{
+		return String.format("%d ticks, %.0f ns CPU/tick, %.1f B allocated/tick, %d ns max tick",
+			ticks, getCpuNanosPerTick(), getAllocatedBytesPerTick(), maxTickNanos);
+	}
+}
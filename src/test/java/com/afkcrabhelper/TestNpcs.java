@@ -0,0 +1,12 @@
+package com.afkcrabhelper;
+
+final class TestNpcs
+{
+	static final int GEMSTONE_CRAB_ID = CrabType.GEMSTONE_CRAB.getNpcIds()[0];
+	static final int SAND_CRAB_ID = CrabType.SAND_CRAB.getNpcIds()[0];
+	static final int MAN_ID = 3106;
+
+	private TestNpcs()
+	{
+	}
+}
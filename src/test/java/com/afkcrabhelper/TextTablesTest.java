@@ -0,0 +1,50 @@
+package com.afkcrabhelper;
+
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+public class TextTablesTest
+{
+	@Test
+	public void testTimeKey()
+	{
+		// 59.4 seconds rounds to 59
+		assertEquals(-1 - 59, TextTables.timeKey(0.99));
+		assertEquals(60, TextTables.timeKey(1.0));
+		assertEquals(60 * 60, TextTables.timeKey(60.0));
+
+		// Past an hour, however far, is one key above the tables rather than an overflow
+		int overRange = TextTables.timeKey(60.5);
+		assertEquals(60 * 60 + 1, overRange);
+		assertEquals(overRange, TextTables.timeKey(1e12));
+		assertEquals(overRange, TextTables.timeKey(Double.POSITIVE_INFINITY));
+
+		assertEquals(-1, TextTables.timeKey(-1));
+		assertEquals(-1, TextTables.timeKey(Double.NaN));
+	}
+
+	@Test
+	public void testRemaining()
+	{
+		TextTables tables = new TextTables();
+		assertEquals("59 seconds", tables.remaining(0.99, 0));
+		assertEquals("1:00 remaining", tables.remaining(1.0, 0));
+		assertEquals("60:00 remaining", tables.remaining(60.0, 0));
+		assertEquals(">60:00 remaining", tables.remaining(1e12, 0));
+		assertEquals(">60:00 remaining", tables.remaining(Double.POSITIVE_INFINITY, 0));
+
+		assertEquals("4:10 \u00B10:20 remaining", tables.remaining(250 / 60.0, 20 / 60.0));
+		assertEquals("45 seconds \u00B10:10", tables.remaining(0.75, 10 / 60.0));
+	}
+
+	@Test
+	public void testHpAndTime()
+	{
+		TextTables tables = new TextTables();
+		assertEquals("50.0% HP | 59s", tables.hpAndTime(500, 0.99, 0));
+		assertEquals("50.0% HP | 1:00", tables.hpAndTime(500, 1.0, 0));
+		assertEquals("50.0% HP | 60:00", tables.hpAndTime(500, 60.0, 0));
+		assertEquals("50.0% HP | >60:00", tables.hpAndTime(500, Double.POSITIVE_INFINITY, 0));
+		assertEquals("50.0% HP | 4:10 \u00B10:20", tables.hpAndTime(500, 250 / 60.0, 20 / 60.0));
+	}
+}
@@ -0,0 +1,50 @@
+package com.afkcrabhelper;
+
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+public class WorldCrabCacheTest
+{
+	private static final long TTL = 60_000;
+	// Half the crab drains in 300 ticks, three minutes
+	private static final double DRAIN = 1 / 600.0;
+
+	@Test
+	public void testRankingByPredictedDeath()
+	{
+		WorldCrabCache cache = new WorldCrabCache(4, TTL);
+		cache.observe(301, 0.5, DRAIN, 0);
+		cache.observe(302, 0.9, DRAIN, 0);
+		cache.observe(303, 0.1, DRAIN, 0);
+		// Seen later with the same HP, so it lives longer than 301
+		cache.observe(304, 0.5, DRAIN, 10_000);
+
+		WorldCrabCache.Snapshot snapshot = cache.snapshot(10_000);
+		assertEquals(4, snapshot.size());
+		assertEquals(302, snapshot.getWorld(0));
+		assertEquals(304, snapshot.getWorld(1));
+		assertEquals(301, snapshot.getWorld(2));
+		assertEquals(303, snapshot.getWorld(3));
+		assertEquals(180_000, snapshot.getDeathMillis(2));
+	}
+
+	@Test
+	public void testEviction()
+	{
+		WorldCrabCache cache = new WorldCrabCache(2, TTL);
+		cache.observe(301, 0.5, DRAIN, 0);
+		cache.observe(302, 0.5, DRAIN, 1_000);
+		cache.observe(301, 0.4, DRAIN, 2_000);
+
+		// Full, so the least recently observed world makes room
+		cache.observe(303, 0.5, DRAIN, 3_000);
+		assertEquals(-1, cache.indexOf(302, 3_000));
+		assertEquals(0.4, cache.getFraction(cache.indexOf(301, 3_000)), 0);
+
+		// Expired entries are gone and make room before anything live
+		assertEquals(-1, cache.indexOf(301, 2_000 + TTL + 1));
+		cache.observe(304, 0.5, DRAIN, 2_000 + TTL + 1);
+		assertEquals(303, cache.snapshot(2_000 + TTL + 1).getWorld(1));
+		assertEquals(2, cache.snapshot(2_000 + TTL + 1).size());
+	}
+}